@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+# Compare le mode pool de threads (VIRTUAL_THREADS=false) et le mode threads virtuels (VIRTUAL_THREADS=true).
+#
+# Scénario : SLOW_UPLOADS uploads de photo envoyés au débit UPLOAD_RATE (clients mobiles lents) occupent le serveur
+# pendant que FAST_REQUESTS lectures GET /api/rentals sont envoyées par FAST_CONCURRENCY clients. Avec le pool
+# de 200 threads de Tomcat, les uploads lents monopolisent les threads et les lectures attendent ; en mode
+# threads virtuels, les lectures doivent garder leur latence nominale.
+#
+# Usage : lancer l'application dans un mode, puis
+#   PICTURE=/chemin/vers/photo.jpg docs/load-test.sh
+# et recommencer dans l'autre mode. Nécessite curl, et une photo d'une centaine de Ko.
+set -euo pipefail
+
+BASE_URL=${BASE_URL:-http://localhost:8080}
+PICTURE=${PICTURE:?PICTURE doit désigner une image JPEG ou PNG}
+SLOW_UPLOADS=${SLOW_UPLOADS:-250}
+UPLOAD_RATE=${UPLOAD_RATE:-4k}
+FAST_REQUESTS=${FAST_REQUESTS:-2000}
+FAST_CONCURRENCY=${FAST_CONCURRENCY:-20}
+EMAIL=${EMAIL:-load-test@example.com}
+PASSWORD=${PASSWORD:-Password123!}
+
+curl -s -o /dev/null -X POST "$BASE_URL/api/auth/register" -H 'Content-Type: application/json' \
+  -d "{\"email\":\"$EMAIL\",\"name\":\"Load Test\",\"password\":\"$PASSWORD\"}" || true
+TOKEN=$(curl -sf -X POST "$BASE_URL/api/auth/login" -H 'Content-Type: application/json' \
+  -d "{\"login\":\"$EMAIL\",\"password\":\"$PASSWORD\"}" | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+RESULTS=$(mktemp)
+trap 'kill $(jobs -p) 2>/dev/null || true; rm -f "$RESULTS"' EXIT
+
+echo "Starting $SLOW_UPLOADS uploads at $UPLOAD_RATE/s..."
+for i in $(seq "$SLOW_UPLOADS"); do
+  curl -s -o /dev/null --limit-rate "$UPLOAD_RATE" -X POST "$BASE_URL/api/rentals" \
+    -H "Authorization: Bearer $TOKEN" \
+    -F "name=Load test $i" -F surface=30 -F price=500 -F description=load -F "picture=@$PICTURE" &
+done
+# Laisse aux uploads le temps d'occuper les threads de requête.
+sleep 5
+
+echo "Sending $FAST_REQUESTS GET /api/rentals with $FAST_CONCURRENCY clients..."
+seq "$FAST_REQUESTS" | xargs -P "$FAST_CONCURRENCY" -I{} \
+  curl -s -o /dev/null -m 30 -w '%{http_code} %{time_total}\n' \
+  -H "Authorization: Bearer $TOKEN" "$BASE_URL/api/rentals?size=20" >> "$RESULTS"
+
+sort -k2 -n "$RESULTS" | awk '
+  { status[$1]++; latency[NR] = $2 }
+  END {
+    printf "requests: %d\n", NR
+    for (code in status) printf "  HTTP %s: %d\n", code, status[code]
+    printf "latency p50: %.3fs  p95: %.3fs  p99: %.3fs  max: %.3fs\n",
+      latency[int(NR * 0.50)], latency[int(NR * 0.95)], latency[int(NR * 0.99)], latency[NR]
+  }'
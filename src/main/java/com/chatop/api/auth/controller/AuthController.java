@@ -11,12 +11,15 @@ package com.chatop.api.auth.controller;
 // des annotations, DTO ou services utilisés plus bas dans le fichier.
 import com.chatop.api.auth.dto.*; // Import de tous les objets de transfert (DTO) liés à l'authentification.
 import com.chatop.api.auth.service.AuthService; // Service métier qui gère la logique d'authentification.
+import com.chatop.api.security.AuthenticatedUser; // Utilisateur authentifié reconstruit depuis le token.
 import com.chatop.api.user.dto.UserResponse; // Objet renvoyé pour représenter un utilisateur côté API.
 import io.swagger.v3.oas.annotations.Operation; // Annotation de documentation pour Swagger.
 import io.swagger.v3.oas.annotations.tags.Tag; // Annotation pour regrouper les endpoints dans la doc.
 import jakarta.validation.Valid; // Permet d'activer la validation automatique des requêtes entrantes.
+import org.springframework.http.HttpHeaders; // Noms des entêtes HTTP standards.
 import org.springframework.http.ResponseEntity; // Classe pratique pour personnaliser les réponses HTTP.
 import org.springframework.security.core.Authentication; // Représentation de l'utilisateur connecté.
+import org.springframework.security.core.annotation.AuthenticationPrincipal; // Injection du principal authentifié.
 import org.springframework.web.bind.annotation.*; // Contient les annotations de mapping (`@PostMapping`, etc.).
 
 // Les annotations ci-dessous indiquent à Spring que cette classe joue le rôle de
@@ -78,6 +81,34 @@ public class AuthController {
         return ResponseEntity.ok(authService.login(request));
     }
 
+    // Cette méthode renouvelle le token d'accès à partir d'un jeton de rafraîchissement, sans mot de passe :
+    // le token d'accès peut ainsi rester court sans obliger l'utilisateur à se reconnecter.
+    @Operation(summary = "Refresh the access token")
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+        return ResponseEntity.ok(authService.refresh(request));
+    }
+
+    // Déconnexion de la session courante : le token d'accès présenté est révoqué immédiatement, ainsi que le jeton
+    // de rafraîchissement s'il est transmis dans le corps (facultatif). Réponse 204 sans contenu.
+    @Operation(summary = "Log out the current session")
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                       @AuthenticationPrincipal AuthenticatedUser user,
+                                       @RequestBody(required = false) RefreshRequest request) {
+        // Le filtre JWT a déjà validé l'entête : il commence forcément par "Bearer ".
+        authService.logout(authorization.substring("Bearer ".length()), user, request);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Déconnexion de toutes les sessions de l'utilisateur (appareil perdu, mot de passe compromis...).
+    @Operation(summary = "Log out all sessions")
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutAll(@AuthenticationPrincipal AuthenticatedUser user) {
+        authService.logoutAll(user);
+        return ResponseEntity.noContent().build();
+    }
+
     // Cette méthode retourne les informations de l'utilisateur actuellement connecté.
     @Operation(summary = "Get current user")
     @GetMapping("/me")
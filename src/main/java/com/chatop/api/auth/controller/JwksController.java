@@ -0,0 +1,49 @@
+package com.chatop.api.auth.controller;
+
+// Contrôleur publiant les clés publiques de vérification des tokens (JWKS).
+
+import com.chatop.api.security.jwt.JwtKeyRing;
+import com.chatop.api.security.jwt.JwtProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Map;
+
+// Les autres services vérifient nos tokens localement à partir de ce document (RFC 7517), sans appeler
+// /api/auth/me ni connaître de secret. Les clés ne changent qu'au redémarrage : le document est sérialisé une fois,
+// servi avec un Cache-Control public et un ETag, et un client qui revalide reçoit un 304 sans corps.
+@RestController
+@Tag(name = "Authentication")
+public class JwksController {
+
+    // Document JWKS sérialisé au démarrage.
+    private final byte[] jwks;
+    // Empreinte du document, servie comme ETag.
+    private final String etag;
+    // Durée de mise en cache autorisée aux clients.
+    private final CacheControl cacheControl;
+
+    public JwksController(JwtKeyRing keyRing, JwtProperties properties, ObjectMapper objectMapper) throws JsonProcessingException {
+        this.jwks = objectMapper.writeValueAsBytes(Map.of("keys", keyRing.jwks()));
+        this.etag = "\"" + DigestUtils.md5DigestAsHex(jwks) + "\"";
+        this.cacheControl = CacheControl.maxAge(properties.getJwksMaxAge()).cachePublic();
+    }
+
+    @Operation(summary = "Public keys used to verify access tokens")
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> jwks(WebRequest request) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(304).cacheControl(cacheControl).eTag(etag).build();
+        }
+        return ResponseEntity.ok().cacheControl(cacheControl).eTag(etag).body(jwks);
+    }
+}
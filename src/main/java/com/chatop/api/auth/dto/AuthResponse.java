@@ -11,11 +11,16 @@ public record AuthResponse(
         // Le type de token afin d'indiquer comment l'envoyer dans l'entête Authorization (par convention "Bearer").
         String tokenType,
         // La durée de validité du token exprimée en secondes, utile pour savoir quand le régénérer.
-        long expiresIn
+        long expiresIn,
+        // Jeton opaque à présenter sur /api/auth/refresh pour obtenir un nouveau token sans ressaisir le mot de passe.
+        // Il n'est utilisable qu'une fois : chaque rafraîchissement en renvoie un nouveau.
+        String refreshToken,
+        // Durée de validité du jeton de rafraîchissement, en secondes.
+        long refreshExpiresIn
 ) {
     // Méthode utilitaire qui crée une réponse standardisée de type Bearer.
     // Cela évite de dupliquer la chaîne "Bearer" et réduit les risques d'erreur de frappe.
-    public static AuthResponse bearer(String token, long expiresIn) {
-        return new AuthResponse(token, "Bearer", expiresIn);
+    public static AuthResponse bearer(String token, long expiresIn, String refreshToken, long refreshExpiresIn) {
+        return new AuthResponse(token, "Bearer", expiresIn, refreshToken, refreshExpiresIn);
     }
 }
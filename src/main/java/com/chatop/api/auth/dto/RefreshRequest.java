@@ -0,0 +1,13 @@
+package com.chatop.api.auth.dto;
+
+// Les DTO d'authentification sont placés dans ce package pour clarifier leur responsabilité.
+
+import jakarta.validation.constraints.NotBlank;
+
+// Corps JSON attendu pour obtenir un nouveau token d'accès à partir d'un jeton de rafraîchissement.
+public record RefreshRequest(
+        // Jeton de rafraîchissement reçu à la connexion ou lors du rafraîchissement précédent.
+        @NotBlank(message = "Refresh token is required")
+        String refreshToken
+) {
+}
@@ -0,0 +1,62 @@
+package com.chatop.api.auth.model;
+
+// Entité JPA représentant un jeton de rafraîchissement émis à la connexion.
+
+import com.chatop.api.user.model.User;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Lombok fournit les méthodes habituelles et les constructeurs.
+// Le jeton lui-même n'est jamais stocké : seule son empreinte SHA-256 l'est, une fuite de la table ne permet donc
+// pas de se connecter. Chaque rafraîchissement consomme le jeton et en émet un nouveau de la même famille.
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "refresh_tokens")
+public class RefreshToken {
+
+    // Identifiant auto-incrémenté.
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Empreinte SHA-256 (hexadécimale) du jeton remis au client ; index unique pour la recherche.
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    // Famille du jeton : tous les jetons issus d'une même connexion par rotations successives.
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    // Utilisateur auquel le jeton a été remis.
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    // Date d'émission.
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Date au-delà de laquelle le jeton est refusé.
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Date à laquelle le jeton a été échangé contre un nouveau (null tant qu'il ne l'a pas été).
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+
+    // Date de révocation de la famille (réutilisation détectée), null sinon.
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    // Initialisation automatique du champ createdAt avant insertion.
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
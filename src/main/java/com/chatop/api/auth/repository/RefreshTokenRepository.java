@@ -0,0 +1,39 @@
+package com.chatop.api.auth.repository;
+
+// Accès aux jetons de rafraîchissement via Spring Data JPA.
+
+import com.chatop.api.auth.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    // Recherche par empreinte, servie par l'index unique de token_hash.
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // Consomme le jeton s'il ne l'a pas déjà été : la condition sur used_at rend l'opération atomique,
+    // de deux rafraîchissements simultanés avec le même jeton, un seul obtient 1.
+    @Modifying
+    @Query("update RefreshToken t set t.usedAt = :now where t.id = :id and t.usedAt is null and t.revokedAt is null")
+    int markUsed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Révoque tous les jetons encore actifs d'une famille.
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :now where t.familyId = :familyId and t.revokedAt is null")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    // Révoque tous les jetons encore actifs d'un utilisateur (déconnexion de toutes les sessions).
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :now where t.user.id = :userId and t.revokedAt is null")
+    int revokeAllForUser(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // Supprime les jetons expirés, qui ne servent plus ni au rafraîchissement ni à la détection de réutilisation.
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -4,7 +4,10 @@ package com.chatop.api.auth.service;
 // AuthService orchestre ici toutes les opérations liées à l'inscription et à la connexion.
 
 import com.chatop.api.auth.dto.*;
+import com.chatop.api.security.AuthenticatedUser;
+import com.chatop.api.security.CustomUserDetailsService;
 import com.chatop.api.security.jwt.JwtTokenService;
+import com.chatop.api.security.jwt.TokenRevocationRegistry;
 import com.chatop.api.user.UserService;
 import com.chatop.api.user.dto.UserResponse;
 import com.chatop.api.user.mapper.UserMapper;
@@ -16,6 +19,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+
 // @Service indique à Spring que cette classe représente un composant métier.
 // Elle sera instanciée automatiquement et injectable dans d'autres classes (ex. le contrôleur).
 @Service
@@ -29,17 +34,29 @@ public class AuthService {
     private final UserService userService;
     // UserMapper convertit une entité User vers un DTO UserResponse adapté à l'exposition API.
     private final UserMapper userMapper;
+    // Émission et rotation des jetons de rafraîchissement.
+    private final RefreshTokenService refreshTokenService;
+    // Chargement du principal lors d'un rafraîchissement, sans vérification du mot de passe.
+    private final CustomUserDetailsService userDetailsService;
+    // Révocation des tokens d'accès (déconnexion).
+    private final TokenRevocationRegistry revocationRegistry;
 
     // Le constructeur liste les dépendances nécessaires. Spring l'utilise pour injecter automatiquement
     // les implémentations correspondantes, ce qui favorise l'inversion de contrôle et facilite les tests unitaires.
     public AuthService(AuthenticationManager authenticationManager,
                        JwtTokenService jwtTokenService,
                        UserService userService,
-                       UserMapper userMapper) {
+                       UserMapper userMapper,
+                       RefreshTokenService refreshTokenService,
+                       CustomUserDetailsService userDetailsService,
+                       TokenRevocationRegistry revocationRegistry) {
         this.authenticationManager = authenticationManager;
         this.jwtTokenService = jwtTokenService;
         this.userService = userService;
         this.userMapper = userMapper;
+        this.refreshTokenService = refreshTokenService;
+        this.userDetailsService = userDetailsService;
+        this.revocationRegistry = revocationRegistry;
     }
 
     // Inscription d'un nouvel utilisateur suivie de la génération d'un token de connexion automatique.
@@ -53,10 +70,8 @@ public class AuthService {
         SecurityContextHolder.getContext().setAuthentication(authentication);
         // Nous récupérons les détails (notamment le nom d'utilisateur) pour fabriquer un token JWT personnalisé.
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        // Génération du token contenant les informations de l'utilisateur et la date d'expiration.
-        String token = jwtTokenService.generateToken(userDetails);
-        // On renvoie à la fois le profil API et les infos d'authentification dans un seul objet de réponse.
-        return new RegisterResponse(userMapper.toResponse(user), AuthResponse.bearer(token, jwtTokenService.getExpirationSeconds()));
+        // On renvoie à la fois le profil API et les infos d'authentification (token et jeton de rafraîchissement).
+        return new RegisterResponse(userMapper.toResponse(user), authenticated(userDetails, refreshTokenService.issue(user.getId())));
     }
 
     // Authentifie un utilisateur existant et renvoie un nouveau token JWT.
@@ -66,8 +81,37 @@ public class AuthService {
                 new UsernamePasswordAuthenticationToken(request.login().toLowerCase(), request.password()));
         SecurityContextHolder.getContext().setAuthentication(authentication);
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        Long userId = ((AuthenticatedUser) userDetails).getId();
+        return authenticated(userDetails, refreshTokenService.issue(userId));
+    }
+
+    // Échange un jeton de rafraîchissement contre un nouveau token d'accès (et un nouveau jeton de rafraîchissement).
+    // Aucun mot de passe n'est vérifié : le coût se limite à une recherche indexée et à la signature du token.
+    public AuthResponse refresh(RefreshRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.refreshToken());
+        UserDetails userDetails = userDetailsService.loadUserById(rotation.userId());
+        return authenticated(userDetails, rotation.token());
+    }
+
+    // Déconnexion : révoque le token d'accès présenté et, s'il est fourni, le jeton de rafraîchissement de la session.
+    public void logout(String accessToken, AuthenticatedUser user, RefreshRequest request) {
+        revocationRegistry.revoke(jwtTokenService.verify(accessToken));
+        if (request != null && request.refreshToken() != null && !request.refreshToken().isBlank()) {
+            refreshTokenService.revoke(request.refreshToken(), user.getId());
+        }
+    }
+
+    // Déconnexion de toutes les sessions : tous les jetons de rafraîchissement et tous les tokens d'accès émis
+    // jusqu'ici (y compris celui de la requête) sont révoqués.
+    public void logoutAll(AuthenticatedUser user) {
+        refreshTokenService.revokeAll(user.getId());
+        revocationRegistry.revokeIssuedBefore(user.getUsername(), Instant.now().plusSeconds(1));
+    }
+
+    // Génère le token d'accès contenant les informations de l'utilisateur et la date d'expiration.
+    private AuthResponse authenticated(UserDetails userDetails, String refreshToken) {
         String token = jwtTokenService.generateToken(userDetails);
-        return AuthResponse.bearer(token, jwtTokenService.getExpirationSeconds());
+        return AuthResponse.bearer(token, jwtTokenService.getExpirationSeconds(), refreshToken, refreshTokenService.getExpirationSeconds());
     }
 
     // Récupère les informations publiques d'un utilisateur à partir de son email.
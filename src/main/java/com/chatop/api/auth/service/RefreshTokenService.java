@@ -0,0 +1,138 @@
+package com.chatop.api.auth.service;
+
+// Émission, rotation et détection de réutilisation des jetons de rafraîchissement.
+
+import com.chatop.api.auth.model.RefreshToken;
+import com.chatop.api.auth.repository.RefreshTokenRepository;
+import com.chatop.api.security.jwt.JwtProperties;
+import com.chatop.api.user.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+// Le jeton de rafraîchissement est une valeur aléatoire opaque de 256 bits : il se vérifie par une recherche
+// indexée sur son empreinte, sans hachage de mot de passe. Chaque utilisation le consomme et en émet un nouveau
+// (rotation) ; présenter un jeton déjà consommé signifie qu'il a été volé, ou que le voleur est passé avant
+// l'utilisateur : toute la famille est alors révoquée et l'utilisateur doit se reconnecter.
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    // Taille en octets de la valeur aléatoire d'un jeton.
+    private static final int TOKEN_BYTES = 32;
+
+    // Persistance des jetons.
+    private final RefreshTokenRepository refreshTokenRepository;
+    // Référence vers l'utilisateur propriétaire, sans le charger.
+    private final UserRepository userRepository;
+    // Durée de validité des jetons de rafraîchissement.
+    private final JwtProperties properties;
+    // Générateur aléatoire cryptographique, thread-safe.
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               UserRepository userRepository,
+                               JwtProperties properties) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.properties = properties;
+    }
+
+    // Émet le premier jeton d'une nouvelle famille (connexion ou inscription).
+    @Transactional
+    public String issue(Long userId) {
+        return issue(userId, UUID.randomUUID().toString());
+    }
+
+    // Échange un jeton valide contre un nouveau jeton de la même famille et renvoie l'utilisateur concerné.
+    // noRollbackFor : la révocation de la famille doit être validée même si la requête échoue.
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(digest(rawToken))
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        LocalDateTime now = LocalDateTime.now();
+        if (current.getRevokedAt() != null) {
+            throw new BadCredentialsException("Refresh token has been revoked");
+        }
+        if (!current.getExpiresAt().isAfter(now)) {
+            throw new BadCredentialsException("Refresh token has expired");
+        }
+        if (refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            log.warn("Refresh token reuse detected for user {}, token family {} revoked",
+                    current.getUser().getId(), current.getFamilyId());
+            throw new BadCredentialsException("Refresh token has already been used");
+        }
+        Long userId = current.getUser().getId();
+        return new Rotation(issue(userId, current.getFamilyId()), userId);
+    }
+
+    // Révoque la famille d'un jeton (déconnexion) ; un jeton inconnu est ignoré, la déconnexion n'échoue pas.
+    // Seul le propriétaire du jeton peut le révoquer.
+    @Transactional
+    public void revoke(String rawToken, Long userId) {
+        refreshTokenRepository.findByTokenHash(digest(rawToken))
+                .filter(token -> token.getUser().getId().equals(userId))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+    }
+
+    // Révoque tous les jetons de l'utilisateur : plus aucune session ne peut être prolongée.
+    @Transactional
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.revokeAllForUser(userId, LocalDateTime.now());
+    }
+
+    // Purge périodique des jetons expirés.
+    @Scheduled(initialDelayString = "${app.jwt.refresh-purge-interval:PT1H}",
+            fixedDelayString = "${app.jwt.refresh-purge-interval:PT1H}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.debug("Purged {} expired refresh tokens", deleted);
+        }
+    }
+
+    // Durée de validité (en secondes) transmise au client.
+    public long getExpirationSeconds() {
+        return properties.getRefreshExpirationSeconds();
+    }
+
+    private String issue(Long userId, String familyId) {
+        byte[] random = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(random);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(digest(rawToken))
+                .familyId(familyId)
+                .user(userRepository.getReferenceById(userId))
+                .expiresAt(LocalDateTime.now().plusSeconds(properties.getRefreshExpirationSeconds()))
+                .build());
+        return rawToken;
+    }
+
+    // Empreinte SHA-256 : le jeton est aléatoire et long, un hachage lent n'apporterait rien.
+    private static String digest(String rawToken) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Résultat d'une rotation : le nouveau jeton à remettre au client et l'utilisateur auquel il appartient.
+    public record Rotation(String token, Long userId) {
+    }
+}
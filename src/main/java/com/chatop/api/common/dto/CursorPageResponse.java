@@ -0,0 +1,19 @@
+package com.chatop.api.common.dto;
+
+// DTO générique utilisé pour renvoyer une page obtenue par curseur (pagination "keyset").
+
+import java.util.List;
+
+// Contrairement à PageResponse, aucun numéro de page : le client rappelle l'endpoint avec nextCursor
+// tant qu'il n'est pas null. Le total est optionnel car il impose un COUNT(*) sur toute la table.
+public record CursorPageResponse<T>(
+        // Les éléments de la page demandée.
+        List<T> content,
+        // Nombre maximal d'éléments par page.
+        int size,
+        // Curseur opaque à renvoyer pour obtenir la page suivante ; null s'il n'y en a plus.
+        String nextCursor,
+        // Nombre total d'éléments, renseigné uniquement si le client l'a demandé.
+        Long totalElements
+) {
+}
@@ -4,9 +4,12 @@ package com.chatop.api.common.exception;
 
 import com.chatop.api.common.dto.ApiErrorResponse;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -54,6 +57,21 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
     }
 
+    // La version indiquée par If-Match n'est plus la version courante : le client doit relire la ressource (412).
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ApiErrorResponse> handlePreconditionFailed(PreconditionFailedException ex, HttpServletRequest request) {
+        ApiErrorResponse body = ApiErrorResponse.of(HttpStatus.PRECONDITION_FAILED.value(), "Precondition Failed", ex.getMessage(), request.getRequestURI(), Map.of());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(body);
+    }
+
+    // Deux modifications concurrentes de la même ligne : la seconde échoue sur la colonne version au lieu d'écraser
+    // la première (409), le client relit la ressource avant de réessayer.
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiErrorResponse> handleOptimisticLocking(OptimisticLockingFailureException ex, HttpServletRequest request) {
+        ApiErrorResponse body = ApiErrorResponse.of(HttpStatus.CONFLICT.value(), "Conflict", "Resource was modified concurrently, please reload it", request.getRequestURI(), Map.of());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
     // IllegalArgumentException est parfois lancée par les bibliothèques standard ; on la mappe aussi sur un 400 lisible.
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ApiErrorResponse> handleIllegalArgument(IllegalArgumentException ex, HttpServletRequest request) {
@@ -61,6 +79,29 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
     }
 
+    // Identifiants ou jeton de rafraîchissement refusés par un service (et non par la chaîne de filtres) : 401.
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<ApiErrorResponse> handleAuthentication(AuthenticationException ex, HttpServletRequest request) {
+        ApiErrorResponse body = ApiErrorResponse.of(HttpStatus.UNAUTHORIZED.value(), "Unauthorized", ex.getMessage(), request.getRequestURI(), Map.of());
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
+    }
+
+    // Ressource saturée (pool de hachage des mots de passe...) : refus immédiat, le client réessaie après le délai indiqué.
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiErrorResponse> handleServiceUnavailable(ServiceUnavailableException ex, HttpServletRequest request) {
+        ApiErrorResponse body = ApiErrorResponse.of(HttpStatus.SERVICE_UNAVAILABLE.value(), "Service Unavailable", ex.getMessage(), request.getRequestURI(), Map.of());
+        long retryAfterSeconds = Math.max(1, ex.getRetryAfter().toSeconds());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds)).body(body);
+    }
+
+    // Aucune connexion à la base n'a pu être obtenue dans le délai du pool (afflux de requêtes, notamment en mode
+    // threads virtuels) : 503 avec Retry-After, le client peut réessayer plutôt que de conclure à une erreur serveur.
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<ApiErrorResponse> handleDatabaseUnavailable(CannotCreateTransactionException ex, HttpServletRequest request) {
+        ApiErrorResponse body = ApiErrorResponse.of(HttpStatus.SERVICE_UNAVAILABLE.value(), "Service Unavailable", "Database is busy, please retry", request.getRequestURI(), Map.of());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(body);
+    }
+
     // Filet de sécurité final : toute exception non prévue renvoie une erreur 500 avec un message générique.
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiErrorResponse> handleGeneric(Exception ex, HttpServletRequest request) {
@@ -0,0 +1,11 @@
+package com.chatop.api.common.exception;
+
+// Exception signalant qu'une précondition de la requête (en-tête If-Match) n'est plus remplie : la ressource a été
+// modifiée depuis que le client l'a lue. Elle sera traduite en réponse HTTP 412 par le gestionnaire d'exceptions global.
+
+public class PreconditionFailedException extends RuntimeException {
+    // Le message précise la ressource concernée.
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
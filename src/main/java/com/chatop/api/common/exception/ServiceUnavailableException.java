@@ -0,0 +1,21 @@
+package com.chatop.api.common.exception;
+
+// Exception signalant une surcharge passagère : la requête est refusée tout de suite plutôt que mise en attente.
+// Elle sera traduite en réponse HTTP 503 accompagnée d'un entête Retry-After par le gestionnaire d'exceptions global.
+
+import java.time.Duration;
+
+public class ServiceUnavailableException extends RuntimeException {
+
+    // Délai conseillé au client avant de réessayer.
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,75 @@
+package com.chatop.api.config;
+
+// Exécuteurs bornés dédiés aux effets de bord sur les fichiers (suppressions, vérification d'empreinte) et au
+// redimensionnement des photos.
+
+import com.chatop.api.storage.FileStorageProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Les tâches de fichiers ne partagent pas l'exécuteur général de l'application : une rafale d'uploads ne doit pas
+// retarder les autres traitements asynchrones, et sa file d'attente doit rester bornée en mémoire.
+@Configuration
+public class FileTaskExecutorConfig {
+
+    // Nom du bean, utilisé par les @Qualifier, et tag "name" des métriques executor.* (executor.queued{name=fileTasks}).
+    public static final String FILE_TASK_EXECUTOR = "fileTasks";
+
+    // Nom du bean et tag "name" des métriques executor.* du redimensionnement (executor.queued{name=variantTasks}).
+    public static final String VARIANT_TASK_EXECUTOR = "variantTasks";
+
+    // Pool de taille fixe et file bornée. Quand la file est pleine, la tâche est exécutée par le thread appelant
+    // (CallerRunsPolicy) : aucune suppression n'est perdue et la contre-pression ralentit les producteurs.
+    // Micrometer publie la profondeur de file (executor.queued), les threads actifs et les tâches terminées ;
+    // le compteur file.tasks.caller.runs signale les débordements.
+    @Bean(name = FILE_TASK_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService fileTaskExecutor(FileStorageProperties properties, MeterRegistry meterRegistry) {
+        Counter callerRuns = Counter.builder("file.tasks.caller.runs")
+                .description("File tasks run on the submitting thread because the queue was full")
+                .register(meterRegistry);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                properties.getTaskThreads(),
+                properties.getTaskThreads(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getTaskQueueCapacity()),
+                new CustomizableThreadFactory("file-task-"),
+                (task, pool) -> {
+                    callerRuns.increment();
+                    new ThreadPoolExecutor.CallerRunsPolicy().rejectedExecution(task, pool);
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, FILE_TASK_EXECUTOR);
+    }
+
+    // Redimensionnement des photos, demandé notamment par GET /files/{nom}?variant= (sans authentification) : il ne
+    // doit jamais s'exécuter sur le thread de la requête. Quand la file est pleine, la demande est refusée
+    // (AbortPolicy) : l'original est servi à la place et la variante sera redemandée au prochain affichage.
+    // Le compteur file.variants.rejected signale ces refus.
+    @Bean(name = VARIANT_TASK_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService variantTaskExecutor(FileStorageProperties properties, MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder("file.variants.rejected")
+                .description("Image variant generations dropped because the queue was full")
+                .register(meterRegistry);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                properties.getVariantThreads(),
+                properties.getVariantThreads(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getVariantQueueCapacity()),
+                new CustomizableThreadFactory("image-variant-"),
+                (task, pool) -> {
+                    rejected.increment();
+                    new ThreadPoolExecutor.AbortPolicy().rejectedExecution(task, pool);
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, VARIANT_TASK_EXECUTOR);
+    }
+}
@@ -0,0 +1,71 @@
+package com.chatop.api.config;
+
+// Configuration du cache de second niveau Hibernate (entités et requêtes), servi par Caffeine via JCache.
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+// Les régions sont créées ici, bornées en taille et en durée, plutôt que laissées à la création implicite
+// de Hibernate (caches JCache sans limite). Le cache est propre à chaque instance : une modification faite sur une
+// autre instance n'y est pas visible avant l'expiration des entrées, d'où une durée de vie courte par défaut.
+// Les statistiques (hibernate.generate_statistics) sont publiées par Actuator : hibernate.second.level.cache.requests
+// (par région, résultat hit/miss) et hibernate.cache.query.requests.
+@Configuration
+public class HibernateCacheConfig {
+
+    // Région des locations (@Cache sur Rental).
+    public static final String RENTALS_REGION = "rentals";
+
+    // Région des utilisateurs (@Cache sur User).
+    public static final String USERS_REGION = "users";
+
+    // Gestionnaire JCache dédié à Hibernate, fermé avec le contexte Spring. Son URI est propre à ce contexte : le
+    // gestionnaire par défaut du fournisseur serait partagé (et fermé) par tous les contextes d'une même JVM.
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${app.entity-cache.max-entries:10000}") long maxEntries,
+                                              @Value("${app.entity-cache.time-to-live:PT1M}") Duration timeToLive) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(URI.create("chatop-hibernate-" + UUID.randomUUID()),
+                HibernateCacheConfig.class.getClassLoader());
+        cacheManager.createCache(RENTALS_REGION, region(maxEntries, timeToLive));
+        cacheManager.createCache(USERS_REGION, region(maxEntries, timeToLive));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(maxEntries, timeToLive));
+        // Dates de dernière modification de chaque table : une entrée par table, jamais expirée, sans quoi un
+        // résultat de requête pourrait être servi après une écriture.
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(1_000, null));
+        return cacheManager;
+    }
+
+    // Branche le gestionnaire sur Hibernate ; une région non déclarée ci-dessus fait échouer le démarrage.
+    @Bean
+    public HibernatePropertiesCustomizer hibernateSecondLevelCache(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxEntries, Duration timeToLive) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        if (timeToLive != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(timeToLive.toNanos()));
+        }
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
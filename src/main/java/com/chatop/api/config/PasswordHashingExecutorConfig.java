@@ -0,0 +1,39 @@
+package com.chatop.api.config;
+
+// Exécuteur borné dédié au hachage et à la vérification des mots de passe (BCrypt).
+
+import com.chatop.api.security.PasswordHashingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Un hachage BCrypt occupe un cœur une centaine de millisecondes : exécutés directement sur les threads de requête,
+// une rafale de connexions consomme tout le CPU et les lectures attendent derrière. Ici, au plus un hachage par
+// processeur tourne à la fois, et la file est courte : au-delà, BoundedPasswordEncoder refuse immédiatement.
+@Configuration
+public class PasswordHashingExecutorConfig {
+
+    // Nom du bean, utilisé par les @Qualifier, et tag "name" des métriques executor.* (executor.queued{name=passwordHashing}).
+    public static final String PASSWORD_HASHING_EXECUTOR = "passwordHashing";
+
+    // Pool de taille fixe et file bornée ; une tâche refusée (AbortPolicy) est convertie en 503 par l'encodeur.
+    @Bean(name = PASSWORD_HASHING_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService passwordHashingExecutor(PasswordHashingProperties properties, MeterRegistry meterRegistry) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                properties.resolveThreads(),
+                properties.resolveThreads(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, PASSWORD_HASHING_EXECUTOR);
+    }
+}
@@ -0,0 +1,13 @@
+package com.chatop.api.config;
+
+// Active l'exécution des tâches planifiées (@Scheduled) de l'application.
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// @EnableScheduling : utilisé notamment par le ramasse-miettes des photos de location. Le planificateur est
+// configuré par spring.task.scheduling (application.yml) : un thread par tâche, pour qu'aucune n'attende les autres.
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,72 @@
+package com.chatop.api.config;
+
+// Diagnostic des threads virtuels "épinglés" à leur thread porteur (bloc synchronized, appel natif).
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Actif uniquement en mode threads virtuels (spring.threads.virtual.enabled=true sur un JDK 21+).
+// Un thread virtuel qui bloque dans un bloc synchronized (pilote JDBC, bibliothèque tierce) garde son thread
+// porteur : quelques blocages de ce type suffisent à retrouver la famine du pool de threads classique.
+// L'événement JFR jdk.VirtualThreadPinned est écouté en continu, dans le processus, sans fichier d'enregistrement :
+// chaque épinglage est compté (jvm.threads.virtual.pinned) et journalisé avec la méthode qui l'a provoqué.
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements InitializingBean, DisposableBean {
+
+    // Événement JFR émis quand un thread virtuel bloque sans pouvoir libérer son thread porteur.
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    // Durée d'épinglage en deçà de laquelle l'événement est ignoré (accès bref à un verrou non contendu).
+    private static final Duration THRESHOLD = Duration.ofMillis(20);
+
+    // Nombre d'épinglages observés depuis le démarrage.
+    private final Counter pinned;
+    // Flux JFR consommé en arrière-plan.
+    private final RecordingStream stream = new RecordingStream();
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+        this.pinned = Counter.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads blocked while pinned to their carrier thread for more than 20 ms")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        stream.enable(PINNED_EVENT).withThreshold(THRESHOLD).withStackTrace();
+        stream.onEvent(PINNED_EVENT, event -> {
+            pinned.increment();
+            log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), culprit(event.getStackTrace()));
+        });
+        stream.startAsync();
+    }
+
+    // Première méthode de l'application dans la pile, à défaut le sommet de la pile.
+    private static String culprit(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown location";
+        }
+        RecordedFrame culprit = stackTrace.getFrames().stream()
+                .filter(frame -> frame.getMethod().getType().getName().startsWith("com.chatop."))
+                .findFirst()
+                .orElse(stackTrace.getFrames().get(0));
+        return culprit.getMethod().getType().getName() + "." + culprit.getMethod().getName() + ":" + culprit.getLineNumber();
+    }
+
+    @Override
+    public void destroy() {
+        stream.close();
+    }
+}
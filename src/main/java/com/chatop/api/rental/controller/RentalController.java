@@ -2,20 +2,35 @@ package com.chatop.api.rental.controller;
 
 // Contrôleur REST exposant les endpoints liés aux annonces de location.
 
+import com.chatop.api.common.dto.CursorPageResponse;
 import com.chatop.api.common.dto.PageResponse;
+import com.chatop.api.common.exception.PreconditionFailedException;
 import com.chatop.api.rental.dto.RentalRequest;
 import com.chatop.api.rental.dto.RentalResponse;
+import com.chatop.api.rental.service.RentalResponseCache;
 import com.chatop.api.rental.service.RentalService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.HashSet;
+import java.util.Set;
+
 // @RestController + @RequestMapping définissent la base des routes.
 @RestController
 @RequestMapping("/api/rentals")
@@ -23,25 +38,59 @@ import org.springframework.web.util.UriComponentsBuilder;
 @Tag(name = "Rentals")
 public class RentalController {
 
+    // Les clients gardent la réponse mais la revalident à chaque fois grâce à l'ETag (304 sans corps si inchangée).
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     // Service métier injecté qui encapsule la logique sur les locations.
     private final RentalService rentalService;
+    // Réponses déjà sérialisées du listing et du détail.
+    private final RentalResponseCache responseCache;
 
-    public RentalController(RentalService rentalService) {
+    public RentalController(RentalService rentalService, RentalResponseCache responseCache) {
         this.rentalService = rentalService;
+        this.responseCache = responseCache;
     }
 
-    // Endpoint GET paginé pour lister les annonces.
+    // Endpoint GET paginé pour lister les annonces. Une page déjà servie est renvoyée telle quelle depuis le cache,
+    // sans requête ni sérialisation.
     @Operation(summary = "List rentals")
-    @GetMapping
-    public ResponseEntity<PageResponse<RentalResponse>> list(@ParameterObject Pageable pageable) {
-        return ResponseEntity.ok(rentalService.list(pageable));
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = PageResponse.class)))
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> list(@ParameterObject Pageable pageable, WebRequest webRequest) {
+        return cached(responseCache.page(pageable, () -> rentalService.list(pageable)), webRequest);
+    }
+
+    // Variante par curseur du listing, sélectionnée dès que le paramètre "cursor" est présent (vide pour la première page).
+    // Les clients existants qui utilisent page/size continuent d'être servis par la méthode list ci-dessus.
+    // Ces pages ne sont pas mises en cache, mais portent le même ETag faible : un client qui revalide reçoit 304.
+    @Operation(summary = "List rentals using cursor pagination")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = CursorPageResponse.class)))
+    @GetMapping(params = "cursor", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> listByCursor(@RequestParam(defaultValue = "") String cursor,
+                                               @RequestParam(defaultValue = "20") int size,
+                                               @RequestParam(defaultValue = "false") boolean withTotal,
+                                               WebRequest webRequest) {
+        return cached(responseCache.uncached(rentalService.listByCursor(cursor, size, withTotal)), webRequest);
     }
 
     // Endpoint GET pour récupérer une annonce précise par son identifiant.
     @Operation(summary = "Get rental details")
-    @GetMapping("/{id}")
-    public ResponseEntity<RentalResponse> get(@PathVariable Long id) {
-        return ResponseEntity.ok(rentalService.getById(id));
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = RentalResponse.class)))
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> get(@PathVariable Long id, WebRequest webRequest) {
+        // Revalidation d'une annonce absente du cache : son ETag se recalcule depuis une projection d'une ligne
+        // (version, photo, propriétaire), sans charger l'annonce ni sérialiser la réponse.
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null && !responseCache.containsRental(id)
+                && responseCache.revalidatesWithoutLoading()) {
+            String etag = rentalService.currentEtag(id);
+            if (webRequest.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).eTag(etag).build();
+            }
+        }
+        return cached(responseCache.rental(id, () -> rentalService.getById(id)), webRequest);
     }
 
     // Endpoint POST de création d'une annonce (multipart car on peut envoyer une image).
@@ -52,16 +101,60 @@ public class RentalController {
                                                  UriComponentsBuilder uriComponentsBuilder) {
         RentalResponse response = rentalService.create(request, authentication.getName());
         return ResponseEntity.created(uriComponentsBuilder.path("/api/rentals/{id}").buildAndExpand(response.id()).toUri())
+                .eTag(RentalResponseCache.etag(response))
                 .body(response);
     }
 
-    // Endpoint PUT pour modifier une annonce existante.
+    // Endpoint PUT pour modifier une annonce existante. Avec If-Match (ETag lu par GET), la modification est refusée
+    // en 412 si l'annonce a changé entre-temps, au lieu d'écraser silencieusement la modification d'un autre client.
     @Operation(summary = "Update rental")
     @PutMapping(value = "/{id}", consumes = {"multipart/form-data"})
     public ResponseEntity<RentalResponse> update(@PathVariable Long id,
                                                  @Valid @ModelAttribute RentalRequest request,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                  Authentication authentication) {
-        RentalResponse response = rentalService.update(id, request, authentication.getName());
-        return ResponseEntity.ok(response);
+        RentalResponse response = rentalService.update(id, request, authentication.getName(), expectedVersions(ifMatch));
+        return ResponseEntity.ok().eTag(RentalResponseCache.etag(response)).body(response);
+    }
+
+    // Versions acceptées d'après If-Match, liste d'ETag séparés par des virgules (RFC 9110) ; null si l'en-tête est
+    // absent ou contient "*" (l'annonce doit seulement exister). Seule la version de chaque ETag
+    // ("<version>-<empreinte>") est comparée : l'empreinte varie aussi avec l'URL présignée de la photo, qui ne doit
+    // pas faire échouer une modification. La comparaison est forte : un ETag faible ne correspond à aucune annonce.
+    static Set<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        for (ETag tag : ETag.parse(ifMatch)) {
+            if (tag.isWildcard()) {
+                return null;
+            }
+            if (tag.weak()) {
+                continue;
+            }
+            int separator = tag.tag().indexOf('-');
+            try {
+                versions.add(Long.parseLong(separator < 0 ? tag.tag() : tag.tag().substring(0, separator)));
+            } catch (NumberFormatException ignored) {
+                // ETag qui n'a pas été émis par cette API : il ne correspond à aucune version.
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new PreconditionFailedException("Rental has been modified since it was read");
+        }
+        return versions;
+    }
+
+    // Réponse 304 si le client possède déjà cette version (If-None-Match), sinon les octets mis en cache.
+    private static ResponseEntity<byte[]> cached(RentalResponseCache.CachedResponse response, WebRequest webRequest) {
+        if (webRequest.checkNotModified(response.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).eTag(response.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(REVALIDATE)
+                .eTag(response.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response.body());
     }
 }
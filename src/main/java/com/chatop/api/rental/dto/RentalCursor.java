@@ -0,0 +1,43 @@
+package com.chatop.api.rental.dto;
+
+// Position d'une location dans l'ordre du listing par curseur : (date de création, identifiant) décroissants.
+
+import com.chatop.api.common.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Le curseur est exposé au client sous forme opaque (Base64 URL) afin qu'il ne dépende pas de son format interne.
+public record RentalCursor(LocalDateTime createdAt, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    // Curseur pointant juste après la dernière location d'une page.
+    public static RentalCursor after(RentalSummary summary) {
+        return new RentalCursor(summary.createdAt(), summary.id());
+    }
+
+    // Décode un curseur reçu du client ; une valeur altérée donne une erreur 400 explicite.
+    public static RentalCursor decode(String value) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new RentalCursor(
+                    LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    // Encode le curseur pour le renvoyer dans la réponse.
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
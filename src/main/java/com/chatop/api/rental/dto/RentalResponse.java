@@ -17,12 +17,18 @@ public record RentalResponse(
         String description,
         // URL publique de l'image associée à la location.
         String pictureUrl,
+        // URL de la vignette (cartes du listing).
+        String thumbnailUrl,
+        // URL de la version de taille moyenne (page de détail).
+        String mediumUrl,
         // Identifiant du propriétaire (référence à l'utilisateur).
         Long ownerId,
         // Nom du propriétaire pour éviter un aller-retour supplémentaire côté client.
         String ownerName,
         // Dates de création et de mise à jour pour le suivi.
         LocalDateTime createdAt,
-        LocalDateTime updatedAt
+        LocalDateTime updatedAt,
+        // Version courante, également renvoyée dans l'ETag ; à reprendre dans If-Match pour modifier l'annonce.
+        Long version
 ) {
 }
@@ -0,0 +1,23 @@
+package com.chatop.api.rental.dto;
+
+// Projection de lecture utilisée par le listing : une ligne SQL contient déjà toutes les informations utiles.
+
+import java.time.LocalDateTime;
+
+// Record construit directement par la requête JPQL (expression "select new ...") : aucune entité n'est chargée,
+// et le nom du propriétaire est lu via une jointure plutôt que par une requête supplémentaire par location.
+public record RentalSummary(
+        Long id,
+        String name,
+        Integer surface,
+        Integer price,
+        String description,
+        // Nom du fichier stocké ; l'URL publique est calculée par le mapper.
+        String picturePath,
+        Long ownerId,
+        String ownerName,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Long version
+) {
+}
@@ -0,0 +1,13 @@
+package com.chatop.api.rental.dto;
+
+// Projection minimale d'une annonce : de quoi recalculer son ETag sans charger l'entité ni sérialiser la réponse.
+
+// Record construit par la requête JPQL (expression "select new ...") : la version couvre les colonnes de l'annonce,
+// le nom du propriétaire et le fichier de la photo couvrent ce que la version ne suit pas.
+public record RentalValidator(
+        Long version,
+        // Nom du fichier stocké ; les URL publiques sont calculées par le mapper.
+        String picturePath,
+        String ownerName
+) {
+}
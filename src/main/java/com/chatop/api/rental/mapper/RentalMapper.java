@@ -3,8 +3,12 @@ package com.chatop.api.rental.mapper;
 // Composant chargé de transformer l'entité Rental en DTO exposable.
 
 import com.chatop.api.rental.dto.RentalResponse;
+import com.chatop.api.rental.dto.RentalSummary;
+import com.chatop.api.rental.dto.RentalValidator;
 import com.chatop.api.rental.model.Rental;
+import com.chatop.api.rental.service.RentalResponseCache;
 import com.chatop.api.storage.FileStorageService;
+import com.chatop.api.storage.ImageVariant;
 import org.springframework.stereotype.Component;
 
 // @Component permet de l'injecter là où l'on en a besoin (services, contrôleurs...).
@@ -27,10 +31,40 @@ public class RentalMapper {
                 rental.getPrice(),
                 rental.getDescription(),
                 fileStorageService.buildPublicUrl(rental.getPicturePath()),
+                fileStorageService.buildVariantUrl(rental.getPicturePath(), ImageVariant.THUMBNAIL),
+                fileStorageService.buildVariantUrl(rental.getPicturePath(), ImageVariant.MEDIUM),
                 rental.getOwner() != null ? rental.getOwner().getId() : null,
                 rental.getOwner() != null ? rental.getOwner().getName() : null,
                 rental.getCreatedAt(),
-                rental.getUpdatedAt()
+                rental.getUpdatedAt(),
+                rental.getVersion()
         );
     }
+
+    // Convertit la projection du listing : toutes les données sont déjà présentes, aucun accès à l'association owner.
+    public RentalResponse toResponse(RentalSummary summary) {
+        return new RentalResponse(
+                summary.id(),
+                summary.name(),
+                summary.surface(),
+                summary.price(),
+                summary.description(),
+                fileStorageService.buildPublicUrl(summary.picturePath()),
+                fileStorageService.buildVariantUrl(summary.picturePath(), ImageVariant.THUMBNAIL),
+                fileStorageService.buildVariantUrl(summary.picturePath(), ImageVariant.MEDIUM),
+                summary.ownerId(),
+                summary.ownerName(),
+                summary.createdAt(),
+                summary.updatedAt(),
+                summary.version()
+        );
+    }
+
+    // ETag d'une annonce d'après sa projection minimale : identique à celui de sa réponse complète.
+    public String etag(RentalValidator validator) {
+        return RentalResponseCache.etag(validator.version(), validator.ownerName(),
+                fileStorageService.buildPublicUrl(validator.picturePath()),
+                fileStorageService.buildVariantUrl(validator.picturePath(), ImageVariant.THUMBNAIL),
+                fileStorageService.buildVariantUrl(validator.picturePath(), ImageVariant.MEDIUM));
+    }
 }
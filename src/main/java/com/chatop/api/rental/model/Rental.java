@@ -4,8 +4,11 @@ package com.chatop.api.rental.model;
 
 import com.chatop.api.user.model.User;
 import com.chatop.api.message.model.Message;
+import com.chatop.api.config.HibernateCacheConfig;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -20,6 +23,11 @@ import java.util.Set;
 // Entité persistée en base dans la table "rentals".
 @Entity
 @Table(name = "rentals")
+// Cache de second niveau : une annonce consultée est ensuite relue sans requête SQL (les pages de détail se
+// concentrent sur quelques annonces). READ_WRITE : une modification verrouille l'entrée jusqu'au commit,
+// aucune transaction ne lit donc une version périmée depuis le cache de cette instance.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.RENTALS_REGION)
 public class Rental {
 
     // Identifiant unique auto-incrémenté.
@@ -65,6 +73,12 @@ public class Rental {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    // Version de la ligne, incrémentée par Hibernate à chaque modification : une mise à jour fondée sur une lecture
+    // périmée échoue au lieu d'écraser la précédente. Elle sert aussi d'ETag à GET /api/rentals/{id}.
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     // Avant insertion : initialisation des timestamps.
     @PrePersist
     public void prePersist() {
@@ -2,9 +2,68 @@ package com.chatop.api.rental.repository;
 
 // Repository Spring Data pour manipuler les entités Rental.
 
+import com.chatop.api.rental.dto.RentalSummary;
+import com.chatop.api.rental.dto.RentalValidator;
 import com.chatop.api.rental.model.Rental;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 // Hérite de toutes les opérations CRUD standard sans avoir à les implémenter manuellement.
 public interface RentalRepository extends JpaRepository<Rental, Long> {
+
+    // Projection du listing, partagée par la pagination par numéro (avec et sans cache de requête) et par curseur.
+    String SUMMARIES = "select new com.chatop.api.rental.dto.RentalSummary("
+            + "r.id, r.name, r.surface, r.price, r.description, r.picturePath, o.id, o.name, r.createdAt, r.updatedAt, r.version) "
+            + "from Rental r join r.owner o";
+
+    // Comptage du listing ; il ne joint pas la table users.
+    String SUMMARIES_COUNT = "select count(r) from Rental r";
+
+    // Listing paginé en une seule requête : la jointure sur le propriétaire évite le "N+1" provoqué
+    // par l'association LAZY owner. La requête de comptage reste séparée et ne joint pas la table users.
+    @Query(value = SUMMARIES, countQuery = SUMMARIES_COUNT)
+    Page<RentalSummary> findAllSummaries(Pageable pageable);
+
+    // Même listing, résultats (page et comptage) gardés dans le cache de requêtes Hibernate. Réservé aux premières
+    // pages, les plus demandées : toute écriture sur rentals ou users invalide ces résultats.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(value = SUMMARIES, countQuery = SUMMARIES_COUNT)
+    Page<RentalSummary> findAllSummariesCached(Pageable pageable);
+
+    // Première page du listing par curseur : les plus récentes d'abord, sans OFFSET ni COUNT.
+    // L'ordre (createdAt, id) est servi par l'index idx_rentals_created_at_id. Page d'accueil : cache de requêtes.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query(SUMMARIES + " order by r.createdAt desc, r.id desc")
+    List<RentalSummary> findLatestSummaries(Limit limit);
+
+    // Pages suivantes : on reprend strictement après la dernière ligne vue (createdAt, id), ce qui reste
+    // aussi rapide en fin de table qu'au début contrairement à un OFFSET.
+    @Query(SUMMARIES + " "
+            + "where r.createdAt < :createdAt or (r.createdAt = :createdAt and r.id < :id) "
+            + "order by r.createdAt desc, r.id desc")
+    List<RentalSummary> findSummariesBefore(@Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Limit limit);
+
+    // Validateur d'une annonce (version, photo, nom du propriétaire) : suffit à répondre 304 à une revalidation.
+    @Query("select new com.chatop.api.rental.dto.RentalValidator(r.version, r.picturePath, o.name) "
+            + "from Rental r join r.owner o where r.id = :id")
+    Optional<RentalValidator> findValidatorById(@Param("id") Long id);
+
+    // Parmi les fichiers donnés, ceux qui sont encore référencés par au moins une location.
+    // Utilisé par le ramasse-miettes des photos pour vérifier un lot de fichiers en une requête (index idx_rentals_picture_path).
+    @Query("select distinct r.picturePath from Rental r where r.picturePath in :picturePaths")
+    List<String> findReferencedPicturePaths(@Param("picturePaths") Collection<String> picturePaths);
 }
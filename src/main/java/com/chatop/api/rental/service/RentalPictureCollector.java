@@ -0,0 +1,168 @@
+package com.chatop.api.rental.service;
+
+// Ramasse-miettes des photos de location : réconcilie le répertoire de stockage avec rentals.picture_path.
+
+import com.chatop.api.rental.repository.RentalRepository;
+import com.chatop.api.storage.FileStorageProperties;
+import com.chatop.api.storage.FileStorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Un fichier est orphelin quand aucune ligne de rentals.picture_path ne le désigne : photo remplacée en stockage
+// adressé par le contenu, transaction annulée après store(), suppression échouée... Plutôt que de tenir un compteur
+// de références à chaque écriture, ce composant les recalcule périodiquement :
+// - chaque passage ne traite qu'un préfixe de nom (un caractère hexadécimal, les noms étant des empreintes ou des UUID),
+//   le répertoire complet est donc couvert en seize passages sans jamais être listé d'un bloc ;
+// - les fichiers sont lus en flux et vérifiés par lots d'une requête, avec une pause entre les lots ;
+// - un orphelin plus ancien que le délai de grâce est d'abord mis en quarantaine, puis supprimé à l'issue de la
+//   quarantaine s'il n'est toujours pas référencé ;
+// - toute la quarantaine est revérifiée à chaque passage : un fichier de nouveau référencé est restauré aussitôt,
+//   sans attendre la fin de sa quarantaine pendant laquelle la location afficherait une photo introuvable.
+@Slf4j
+@Component
+public class RentalPictureCollector {
+
+    // Premiers caractères possibles des noms stockés (empreintes SHA-256 et UUID en hexadécimal minuscule).
+    private static final String PREFIXES = "0123456789abcdef";
+
+    // Accès aux références (rentals.picture_path).
+    private final RentalRepository rentalRepository;
+    // Accès aux fichiers stockés.
+    private final FileStorageService fileStorageService;
+    // Délais, taille des lots et pause entre lots.
+    private final FileStorageProperties properties;
+    // Préfixe traité au prochain passage planifié.
+    private final AtomicInteger nextPrefix = new AtomicInteger();
+    // Compteurs publiés via Actuator (file.gc.*).
+    private final Counter quarantined;
+    private final Counter restored;
+    private final Counter deleted;
+    private final Counter reclaimedBytes;
+
+    public RentalPictureCollector(RentalRepository rentalRepository,
+                                  FileStorageService fileStorageService,
+                                  FileStorageProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.rentalRepository = rentalRepository;
+        this.fileStorageService = fileStorageService;
+        this.properties = properties;
+        this.quarantined = Counter.builder("file.gc.quarantined")
+                .description("Unreferenced files moved to quarantine")
+                .register(meterRegistry);
+        this.restored = Counter.builder("file.gc.restored")
+                .description("Quarantined files referenced again and put back in service")
+                .register(meterRegistry);
+        this.deleted = Counter.builder("file.gc.deleted")
+                .description("Quarantined files permanently deleted")
+                .register(meterRegistry);
+        this.reclaimedBytes = Counter.builder("file.gc.reclaimed")
+                .description("Disk space reclaimed by the picture garbage collector")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    // Passage planifié : la période est réglée par app.file-storage.gc-interval.
+    @Scheduled(initialDelayString = "${app.file-storage.gc-interval:PT5M}",
+            fixedDelayString = "${app.file-storage.gc-interval:PT5M}")
+    public void scheduledSweep() {
+        String prefix = String.valueOf(PREFIXES.charAt(Math.floorMod(nextPrefix.getAndIncrement(), PREFIXES.length())));
+        SweepReport report = sweep(prefix);
+        if (report.quarantined() + report.restored() + report.deleted() > 0) {
+            log.info("Picture garbage collection on prefix {}: {}", prefix, report);
+        }
+    }
+
+    // Traite les fichiers dont le nom commence par prefix, puis la quarantaine et les fichiers temporaires abandonnés.
+    public SweepReport sweep(String prefix) {
+        Instant now = Instant.now();
+        Instant graceCutoff = now.minus(properties.getGcGracePeriod());
+        SweepReport.Builder report = new SweepReport.Builder();
+
+        fileStorageService.scanStored(prefix, graceCutoff, batchSize(), batch -> {
+            report.scanned += batch.size();
+            Set<String> referenced = referencedAmong(batch);
+            for (String name : batch) {
+                if (!referenced.contains(name) && fileStorageService.quarantine(name, graceCutoff) >= 0) {
+                    report.quarantined++;
+                    quarantined.increment();
+                }
+            }
+            pause();
+        });
+
+        Instant quarantineCutoff = now.minus(properties.getGcQuarantinePeriod());
+        fileStorageService.scanQuarantined(now, batchSize(), batch -> {
+            Set<String> referenced = referencedAmong(batch);
+            for (String name : batch) {
+                if (referenced.contains(name)) {
+                    // Une location a été enregistrée avec ce fichier pendant sa quarantaine.
+                    log.warn("Quarantined file {} is referenced again and is restored", name);
+                    fileStorageService.restore(name);
+                    report.restored++;
+                    restored.increment();
+                    continue;
+                }
+                // Seuls les fichiers arrivés au terme de leur quarantaine sont supprimés.
+                long size = fileStorageService.purgeQuarantined(name, quarantineCutoff);
+                if (size >= 0) {
+                    report.deleted++;
+                    report.reclaimedBytes += size;
+                    deleted.increment();
+                }
+            }
+            pause();
+        });
+
+        report.reclaimedBytes += fileStorageService.purgeTemporaryFiles(graceCutoff);
+        reclaimedBytes.increment(report.reclaimedBytes);
+        return report.build();
+    }
+
+    private Set<String> referencedAmong(List<String> batch) {
+        return new HashSet<>(rentalRepository.findReferencedPicturePaths(batch));
+    }
+
+    private int batchSize() {
+        return Math.max(1, properties.getGcBatchSize());
+    }
+
+    // Laisse respirer le disque et la base entre deux lots.
+    private void pause() {
+        Duration pause = properties.getGcBatchPause();
+        if (pause == null || pause.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Bilan d'un passage.
+    public record SweepReport(int scanned, int quarantined, int restored, int deleted, long reclaimedBytes) {
+
+        // Accumulateur mutable utilisé pendant le parcours (les lots sont traités séquentiellement).
+        private static final class Builder {
+            private int scanned;
+            private int quarantined;
+            private int restored;
+            private int deleted;
+            private long reclaimedBytes;
+
+            private SweepReport build() {
+                return new SweepReport(scanned, quarantined, restored, deleted, reclaimedBytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.chatop.api.rental.service;
+
+// Cache des réponses JSON déjà sérialisées du listing et du détail des annonces.
+
+import com.chatop.api.common.dto.PageResponse;
+import com.chatop.api.rental.dto.RentalResponse;
+import com.chatop.api.storage.FileStorageProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Les premières pages et les annonces les plus consultées sont demandées des milliers de fois par minute : on garde
+// les octets JSON et leur ETag, si bien qu'un succès ne passe ni par Hibernate ni par Jackson. RentalService invalide
+// après commit l'annonce modifiée et les pages qui la contiennent (toutes les pages lors d'une création, le total
+// changeant). Le cache est propre à chaque instance : une écriture faite ailleurs n'est visible qu'après expiration.
+@Component
+public class RentalResponseCache {
+
+    // Réponse prête à être écrite : corps JSON et ETag (version de l'annonce et empreinte de ce qu'elle ne couvre pas
+    // pour le détail, empreinte faible du corps pour les pages).
+    public record CachedResponse(byte[] body, String etag) {
+    }
+
+    // Page mise en cache avec les identifiants des annonces qu'elle contient, pour une invalidation ciblée.
+    private record CachedPage(CachedResponse response, Set<Long> rentalIds) {
+    }
+
+    // Sérialisation identique à celle des contrôleurs (même ObjectMapper).
+    private final ObjectMapper objectMapper;
+    // Détail des annonces, par identifiant.
+    private final Cache<Long, CachedResponse> rentals;
+    // Pages du listing, par numéro, taille et tri.
+    private final Cache<String, CachedPage> pages;
+    // Incrémenté à chaque invalidation : une réponse calculée pendant une écriture n'est pas conservée.
+    private final AtomicLong generation = new AtomicLong();
+    // URL des photos présignées (S3 sans URL publique) : elles changent à chaque calcul de la réponse.
+    private final boolean presignedUrls;
+
+    public RentalResponseCache(ObjectMapper objectMapper,
+                               FileStorageProperties fileStorageProperties,
+                               @Value("${app.response-cache.max-entries:1000}") long maxEntries,
+                               @Value("${app.response-cache.time-to-live:PT30S}") Duration timeToLive) {
+        this.objectMapper = objectMapper;
+        this.presignedUrls = presignedUrls(fileStorageProperties);
+        Duration ttl = effectiveTimeToLive(timeToLive, fileStorageProperties);
+        this.rentals = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    // Les réponses contiennent les URL présignées des photos quand elles sont stockées sur S3 : une entrée ne doit
+    // pas survivre à ses URL, on la limite donc à la moitié de leur durée de validité.
+    static Duration effectiveTimeToLive(Duration timeToLive, FileStorageProperties properties) {
+        if (!presignedUrls(properties)) {
+            return timeToLive;
+        }
+        Duration bound = properties.getS3().getPresignTtl().dividedBy(2);
+        return timeToLive.compareTo(bound) < 0 ? timeToLive : bound;
+    }
+
+    private static boolean presignedUrls(FileStorageProperties properties) {
+        return "s3".equalsIgnoreCase(properties.getBackend()) && !StringUtils.hasText(properties.getPublicUrl());
+    }
+
+    // ETag fort du détail d'une annonce.
+    public static String etag(RentalResponse rental) {
+        return etag(rental.version(), rental.ownerName(), rental.pictureUrl(), rental.thumbnailUrl(), rental.mediumUrl());
+    }
+
+    // "<version>-<empreinte>" : la version couvre les colonnes de l'annonce, l'empreinte ce qui change sans elle
+    // (nom du propriétaire, URL des photos, présignées sur S3). Un client qui revalide ne reçoit donc pas 304
+    // indéfiniment, et l'ETag se recalcule depuis RentalValidator sans charger l'annonce. If-Match n'en compare que
+    // la version (RentalController).
+    public static String etag(long version, String ownerName, String pictureUrl, String thumbnailUrl, String mediumUrl) {
+        String unversioned = String.join("\n", String.valueOf(ownerName), String.valueOf(pictureUrl),
+                String.valueOf(thumbnailUrl), String.valueOf(mediumUrl));
+        return "\"" + version + "-" + DigestUtils.md5DigestAsHex(unversioned.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // Indique si l'ETag du détail peut être recalculé sans construire la réponse : impossible avec des URL présignées,
+    // différentes à chaque calcul.
+    public boolean revalidatesWithoutLoading() {
+        return !presignedUrls;
+    }
+
+    // Indique si le détail d'une annonce est déjà en cache.
+    public boolean containsRental(Long id) {
+        return rentals.getIfPresent(id) != null;
+    }
+
+    // Réponse sérialisée avec un ETag faible, sans mise en cache (pages par curseur).
+    public CachedResponse uncached(Object value) {
+        byte[] body = serialize(value);
+        return new CachedResponse(body, weakEtag(body));
+    }
+
+    private static String weakEtag(byte[] body) {
+        return "W/\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    // Détail d'une annonce, calculé par loader en cas d'absence.
+    public CachedResponse rental(Long id, Supplier<RentalResponse> loader) {
+        CachedResponse cached = rentals.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = generation.get();
+        RentalResponse rental = loader.get();
+        CachedResponse response = new CachedResponse(serialize(rental), etag(rental));
+        rentals.put(id, response);
+        if (generation.get() != seen) {
+            rentals.invalidate(id);
+        }
+        return response;
+    }
+
+    // Page du listing, calculée par loader en cas d'absence.
+    public CachedResponse page(Pageable pageable, Supplier<PageResponse<RentalResponse>> loader) {
+        String key = pageable.isPaged()
+                ? pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort()
+                : "unpaged:" + pageable.getSort();
+        CachedPage cached = pages.getIfPresent(key);
+        if (cached != null) {
+            return cached.response();
+        }
+        long seen = generation.get();
+        PageResponse<RentalResponse> page = loader.get();
+        byte[] body = serialize(page);
+        CachedPage entry = new CachedPage(new CachedResponse(body, weakEtag(body)),
+                page.content().stream().map(RentalResponse::id).collect(Collectors.toUnmodifiableSet()));
+        pages.put(key, entry);
+        if (generation.get() != seen) {
+            pages.invalidate(key);
+        }
+        return entry.response();
+    }
+
+    // Une annonce vient d'être créée : toutes les pages sont périmées (contenu décalé, total modifié).
+    public void evictAfterCreate() {
+        runAfterCommit(() -> {
+            generation.incrementAndGet();
+            pages.invalidateAll();
+        });
+    }
+
+    // Une annonce vient d'être modifiée : son détail et les seules pages qui l'affichent sont périmés.
+    public void evictAfterUpdate(Long id) {
+        runAfterCommit(() -> {
+            generation.incrementAndGet();
+            rentals.invalidate(id);
+            pages.asMap().values().removeIf(page -> page.rentalIds().contains(id));
+        });
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize rental response", ex);
+        }
+    }
+
+    // L'invalidation attend le commit : avant, une lecture concurrente remettrait en cache l'ancienne version.
+    private static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
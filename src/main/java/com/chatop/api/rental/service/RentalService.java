@@ -2,18 +2,24 @@ package com.chatop.api.rental.service;
 
 // Service métier encapsulant les règles de gestion des locations.
 
+import com.chatop.api.common.dto.CursorPageResponse;
 import com.chatop.api.common.dto.PageResponse;
 import com.chatop.api.common.exception.BadRequestException;
+import com.chatop.api.common.exception.PreconditionFailedException;
 import com.chatop.api.common.exception.ResourceNotFoundException;
+import com.chatop.api.rental.dto.RentalCursor;
 import com.chatop.api.rental.dto.RentalRequest;
 import com.chatop.api.rental.dto.RentalResponse;
+import com.chatop.api.rental.dto.RentalSummary;
 import com.chatop.api.rental.mapper.RentalMapper;
 import com.chatop.api.rental.model.Rental;
 import com.chatop.api.rental.repository.RentalRepository;
+import com.chatop.api.storage.FileSideEffects;
 import com.chatop.api.storage.FileStorageService;
 import com.chatop.api.user.UserService;
 import com.chatop.api.user.model.User;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
@@ -21,40 +27,83 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
+import java.util.Set;
 
 // @Service signale à Spring que cette classe contient la logique métier.
 @Service
 public class RentalService {
 
+    // Taille maximale d'une page en mode curseur, pour borner le coût d'une requête.
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    // Nombre de premières pages du listing servies par le cache de requêtes ; les suivantes vont en base.
+    private static final int CACHED_PAGES = 3;
+
     // Accès aux données des locations.
     private final RentalRepository rentalRepository;
     // Permet de récupérer les utilisateurs (propriétaires).
     private final UserService userService;
     // Gestion du stockage des photos.
     private final FileStorageService fileStorageService;
+    // Tâches de fichiers différées après le commit (variantes, suppressions, vérifications).
+    private final FileSideEffects fileSideEffects;
     // Conversion entité -> DTO.
     private final RentalMapper rentalMapper;
+    // Réponses sérialisées du listing et du détail, invalidées après chaque écriture.
+    private final RentalResponseCache responseCache;
 
     public RentalService(RentalRepository rentalRepository,
                          UserService userService,
                          FileStorageService fileStorageService,
-                         RentalMapper rentalMapper) {
+                         FileSideEffects fileSideEffects,
+                         RentalMapper rentalMapper,
+                         RentalResponseCache responseCache) {
         this.rentalRepository = rentalRepository;
         this.userService = userService;
         this.fileStorageService = fileStorageService;
+        this.fileSideEffects = fileSideEffects;
         this.rentalMapper = rentalMapper;
+        this.responseCache = responseCache;
     }
 
     // Lecture paginée des locations. readOnly = true optimise les transactions pour les opérations de lecture.
+    // La projection RentalSummary ramène le nom du propriétaire dans la même requête (pas de N+1).
+    // Les premières pages, de loin les plus consultées, sont servies par le cache de requêtes Hibernate.
     @Transactional(readOnly = true)
     public PageResponse<RentalResponse> list(Pageable pageable) {
-        Page<Rental> rentals = rentalRepository.findAll(pageable);
+        Page<RentalSummary> rentals = pageable.isPaged() && pageable.getPageNumber() < CACHED_PAGES
+                ? rentalRepository.findAllSummariesCached(pageable)
+                : rentalRepository.findAllSummaries(pageable);
         List<RentalResponse> content = rentals.getContent().stream()
                 .map(rentalMapper::toResponse)
                 .toList();
         return new PageResponse<>(content, rentals.getNumber(), rentals.getSize(), rentals.getTotalElements(), rentals.getTotalPages());
     }
 
+    // Lecture par curseur (keyset) : une seule requête par page quelle que soit sa profondeur.
+    // Le COUNT(*) n'est exécuté que si le client demande explicitement le total.
+    @Transactional(readOnly = true)
+    public CursorPageResponse<RentalResponse> listByCursor(String cursor, int size, boolean withTotal) {
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        // On lit une ligne de plus que demandé pour savoir s'il existe une page suivante.
+        Limit limit = Limit.of(pageSize + 1);
+        List<RentalSummary> rows;
+        if (StringUtils.hasText(cursor)) {
+            RentalCursor position = RentalCursor.decode(cursor);
+            rows = rentalRepository.findSummariesBefore(position.createdAt(), position.id(), limit);
+        } else {
+            rows = rentalRepository.findLatestSummaries(limit);
+        }
+        boolean hasNext = rows.size() > pageSize;
+        List<RentalSummary> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? RentalCursor.after(page.get(page.size() - 1)).encode() : null;
+        Long total = withTotal ? rentalRepository.count() : null;
+        List<RentalResponse> content = page.stream()
+                .map(rentalMapper::toResponse)
+                .toList();
+        return new CursorPageResponse<>(content, pageSize, nextCursor, total);
+    }
+
     // Récupère une annonce précise ou lève une erreur 404 si elle n'existe pas.
     @Transactional(readOnly = true)
     public RentalResponse getById(Long id) {
@@ -69,6 +118,8 @@ public class RentalService {
         }
         User owner = userService.getByEmail(ownerEmail);
         String storedFile = fileStorageService.store(request.getPicture());
+        // Variantes et vérification d'empreinte partent après le commit, hors de la transaction.
+        fileSideEffects.afterStore(storedFile);
         Rental rental = Rental.builder()
                 .name(request.getName())
                 .surface(request.getSurface())
@@ -78,17 +129,23 @@ public class RentalService {
                 .owner(owner)
                 .build();
         rentalRepository.save(rental);
+        responseCache.evictAfterCreate();
         return rentalMapper.toResponse(rental);
     }
 
     // Met à jour une location existante après vérification des droits du propriétaire.
+    // expectedVersions (issues de If-Match, null si absent) protègent contre l'écrasement d'une modification faite
+    // depuis la lecture du client ; la colonne version couvre en plus la course entre cette vérification et le commit.
     @Transactional
-    public RentalResponse update(Long id, RentalRequest request, String ownerEmail) {
+    public RentalResponse update(Long id, RentalRequest request, String ownerEmail, Set<Long> expectedVersions) {
         Rental rental = getEntity(id);
         User owner = userService.getByEmail(ownerEmail);
         if (!rental.getOwner().getId().equals(owner.getId())) {
             throw new AccessDeniedException("You are not allowed to update this rental");
         }
+        if (expectedVersions != null && !expectedVersions.contains(rental.getVersion())) {
+            throw new PreconditionFailedException("Rental has been modified since it was read");
+        }
         rental.setName(request.getName());
         rental.setSurface(request.getSurface());
         rental.setPrice(request.getPrice());
@@ -98,12 +155,29 @@ public class RentalService {
         if (request.getPicture() != null && !request.getPicture().isEmpty()) {
             String oldPicture = rental.getPicturePath();
             String stored = fileStorageService.store(request.getPicture());
+            fileSideEffects.afterStore(stored);
             rental.setPicturePath(stored);
-            fileStorageService.delete(oldPicture);
+            // L'ancienne photo n'est supprimée qu'après le commit (un rollback la laisse intacte). En stockage adressé
+            // par le contenu, elle peut être partagée : c'est alors le ramasse-miettes (RentalPictureCollector) qui
+            // la supprime, une fois plus aucune location ne la référence.
+            if (!stored.equals(oldPicture)) {
+                fileSideEffects.releaseAfterCommit(oldPicture);
+            }
         }
+        responseCache.evictAfterUpdate(id);
+        // Écriture immédiate : la réponse (et son ETag) porte la version incrémentée.
+        rentalRepository.flush();
         return rentalMapper.toResponse(rental);
     }
 
+    // ETag courant d'une annonce, lu sans charger l'entité ni construire la réponse (revalidation par If-None-Match).
+    @Transactional(readOnly = true)
+    public String currentEtag(Long id) {
+        return rentalRepository.findValidatorById(id)
+                .map(rentalMapper::etag)
+                .orElseThrow(() -> new ResourceNotFoundException("Rental not found"));
+    }
+
     // Méthode utilitaire réutilisable pour charger une entité Rental.
     @Transactional(readOnly = true)
     public Rental getEntity(Long id) {
@@ -0,0 +1,81 @@
+package com.chatop.api.security;
+
+// Représentation de l'utilisateur authentifié manipulée par Spring Security.
+
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+// Contrairement au User standard de Spring, ce principal transporte aussi l'identifiant en base :
+// il peut ainsi être écrit dans le token puis reconstruit depuis les claims sans relire la table users.
+public class AuthenticatedUser implements UserDetails, CredentialsContainer {
+
+    // Rôle attribué par défaut à tout utilisateur authentifié.
+    public static final String DEFAULT_ROLE = "ROLE_USER";
+
+    private final Long id;
+    private final String email;
+    // Hash du mot de passe ; null lorsque le principal est reconstruit depuis un token.
+    private String password;
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Long id, String email, String password, Collection<? extends GrantedAuthority> authorities) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.authorities = List.copyOf(authorities);
+    }
+
+    // Construit un principal à partir des informations d'un token déjà vérifié (aucun mot de passe disponible).
+    public static AuthenticatedUser fromClaims(Long id, String email, List<String> roles) {
+        List<String> effectiveRoles = roles == null || roles.isEmpty() ? List.of(DEFAULT_ROLE) : roles;
+        return new AuthenticatedUser(id, email, null,
+                effectiveRoles.stream().map(SimpleGrantedAuthority::new).toList());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    // Spring Security efface le mot de passe après l'authentification pour ne pas le garder dans le contexte.
+    @Override
+    public void eraseCredentials() {
+        this.password = null;
+    }
+
+    // Deux principaux sont égaux s'ils désignent le même compte (même logique que le User de Spring).
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof AuthenticatedUser other && Objects.equals(email, other.email);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(email);
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser[id=" + id + ", email=" + email + ", authorities=" + authorities + "]";
+    }
+}
@@ -0,0 +1,47 @@
+package com.chatop.api.security;
+
+// Calibre au démarrage le coût BCrypt sur le matériel réel, à partir d'une latence cible par hachage.
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+// Chaque incrément du coût double le temps de calcul : il suffit de mesurer le coût minimal pour estimer tous les
+// autres, sans jamais exécuter de hachage coûteux au démarrage.
+public final class BCryptCostCalibrator {
+
+    // Nombre de mesures dont on retient la médiane (la première exécution, plus lente, sert de préchauffage).
+    private static final int SAMPLES = 3;
+
+    private BCryptCostCalibrator() {
+    }
+
+    // Renvoie le coût le plus élevé dont le hachage reste sous target, borné par [minCost, maxCost].
+    public static int calibrate(Duration target, int minCost, int maxCost) {
+        return calibrate(measure(minCost), target, minCost, maxCost);
+    }
+
+    // Extrapole à partir de la durée mesurée au coût minCost.
+    static int calibrate(long baseline, Duration target, int minCost, int maxCost) {
+        int cost = minCost;
+        while (cost < maxCost && baseline << (cost + 1 - minCost) <= target.toNanos()) {
+            cost++;
+        }
+        return cost;
+    }
+
+    // Durée médiane (en nanosecondes) d'un hachage au coût donné.
+    static long measure(int cost) {
+        String salt = BCrypt.gensalt(cost);
+        BCrypt.hashpw("calibration", salt);
+        long[] durations = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            durations[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(durations);
+        return durations[SAMPLES / 2];
+    }
+}
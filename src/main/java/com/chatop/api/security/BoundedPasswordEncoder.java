@@ -0,0 +1,122 @@
+package com.chatop.api.security;
+
+// PasswordEncoder qui exécute le hachage et la vérification des mots de passe sur un pool borné dédié.
+
+import com.chatop.api.common.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Contrôle d'admission : une opération est refusée tout de suite (503 + Retry-After) si la file du pool est pleine,
+// ou si elle n'a pas abouti dans le délai maxWait. Une rafale de connexions ne retient ainsi qu'un nombre borné
+// de threads de requête, et n'occupe jamais plus de CPU que le pool n'a de threads.
+// Micrometer publie le temps d'attente dans la file (auth.password.queue.wait), la durée du calcul
+// (auth.password.hashing, par opération) et les refus (auth.password.rejected, par motif).
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    // Encodeur effectif (BCrypt).
+    private final PasswordEncoder delegate;
+    // Pool dédié, à file bornée.
+    private final ExecutorService executor;
+    // Attente maximale d'une opération, file comprise.
+    private final Duration maxWait;
+    // Temps passé dans la file avant d'obtenir un thread.
+    private final Timer queueWait;
+    // Durée du calcul de hachage, pour encode et matches.
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    // Refus pour file pleine et pour délai dépassé.
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, ExecutorService executor, Duration maxWait, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.maxWait = maxWait;
+        this.queueWait = Timer.builder("auth.password.queue.wait")
+                .description("Time password operations wait for a hashing thread")
+                .register(meterRegistry);
+        this.encodeTimer = hashingTimer("encode", meterRegistry);
+        this.matchesTimer = hashingTimer("matches", meterRegistry);
+        this.rejectedQueueFull = rejectedCounter("queue_full", meterRegistry);
+        this.rejectedTimeout = rejectedCounter("timeout", meterRegistry);
+    }
+
+    private static Timer hashingTimer(String operation, MeterRegistry meterRegistry) {
+        return Timer.builder("auth.password.hashing")
+                .description("Time spent hashing or verifying a password")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectedCounter(String reason, MeterRegistry meterRegistry) {
+        return Counter.builder("auth.password.rejected")
+                .description("Password operations rejected because the hashing pool was saturated")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Simple lecture du coût inscrit dans le hash : pas besoin du pool.
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Timer timer, Callable<T> operation) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWait.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(operation);
+            });
+        } catch (RejectedExecutionException ex) {
+            rejectedQueueFull.increment();
+            throw busy();
+        }
+        try {
+            return future.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            // Encore en file : l'opération est retirée ; déjà commencée, elle se termine mais son résultat est ignoré.
+            future.cancel(false);
+            rejectedTimeout.increment();
+            throw busy();
+        } catch (InterruptedException ex) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw busy();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Password operation failed", ex.getCause());
+        }
+    }
+
+    private ServiceUnavailableException busy() {
+        return new ServiceUnavailableException("Too many authentication requests, please retry", maxWait);
+    }
+}
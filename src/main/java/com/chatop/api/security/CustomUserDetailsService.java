@@ -6,6 +6,7 @@ import com.chatop.api.user.model.User;
 import com.chatop.api.user.repository.UserRepository;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -13,8 +14,11 @@ import org.springframework.stereotype.Service;
 import java.util.List;
 
 // @Service permet l'injection automatique dans d'autres composants (comme le filtre JWT).
+// En implémentant aussi UserDetailsPasswordService, le service est utilisé par Spring Security pour enregistrer
+// le nouveau hash d'un mot de passe dont l'encodage est obsolète (coût BCrypt augmenté, hash sans préfixe),
+// juste après une connexion réussie : c'est le seul moment où le mot de passe en clair est connu.
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     // Repository injecté pour récupérer l'utilisateur depuis la base de données.
     private final UserRepository userRepository;
@@ -29,11 +33,33 @@ public class CustomUserDetailsService implements UserDetailsService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        // On construit un objet UserDetails standard en fournissant email, hash du mot de passe et rôles.
-        return new org.springframework.security.core.userdetails.User(
+        return toPrincipal(user);
+    }
+
+    // Charge le principal par identifiant (rafraîchissement du token) ; lecture servie par le cache de second niveau.
+    public UserDetails loadUserById(Long id) throws UsernameNotFoundException {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+        return toPrincipal(user);
+    }
+
+    // Remplace le hash stocké ; l'entité lue est propre à cet appel, Hibernate invalide son cache au commit.
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPasswordHash) {
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        user.setPasswordHash(newPasswordHash);
+        return toPrincipal(userRepository.save(user));
+    }
+
+    private static UserDetails toPrincipal(User user) {
+        // On construit le principal en fournissant identifiant, email, hash du mot de passe et rôles.
+        return new AuthenticatedUser(
+                user.getId(),
                 user.getEmail(),
                 user.getPasswordHash(),
-                List.of(new SimpleGrantedAuthority("ROLE_USER"))
+                List.of(new SimpleGrantedAuthority(AuthenticatedUser.DEFAULT_ROLE))
         );
     }
 }
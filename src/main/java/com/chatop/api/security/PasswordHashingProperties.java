@@ -0,0 +1,110 @@
+package com.chatop.api.security;
+
+// Cette classe charge la configuration du pool dédié au hachage des mots de passe.
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// @ConfigurationProperties lit les propriétés commençant par "app.password-hashing".
+@Configuration
+@ConfigurationProperties(prefix = "app.password-hashing")
+public class PasswordHashingProperties {
+
+    /**
+     * Number of threads hashing or verifying passwords (0: one per available processor).
+     */
+    private int threads;
+
+    /**
+     * Maximum number of password operations waiting for a thread; beyond it requests are rejected with a 503.
+     */
+    private int queueCapacity = 32;
+
+    /**
+     * Maximum time a request waits for its password operation before being rejected with a 503.
+     */
+    private Duration maxWait = Duration.ofSeconds(2);
+
+    /**
+     * Fixed BCrypt cost; 0 calibrates it at startup so that one hash takes about targetLatency.
+     */
+    private int cost;
+
+    /**
+     * Target duration of one hash, used to calibrate the BCrypt cost on the actual hardware.
+     */
+    private Duration targetLatency = Duration.ofMillis(100);
+
+    /**
+     * Lowest BCrypt cost the calibration may choose.
+     */
+    private int minCost = 10;
+
+    /**
+     * Highest BCrypt cost the calibration may choose.
+     */
+    private int maxCost = 14;
+
+    // Nombre effectif de threads : un par processeur par défaut, BCrypt n'utilisant que du CPU.
+    public int resolveThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public void setCost(int cost) {
+        this.cost = cost;
+    }
+
+    public Duration getTargetLatency() {
+        return targetLatency;
+    }
+
+    public void setTargetLatency(Duration targetLatency) {
+        this.targetLatency = targetLatency;
+    }
+
+    public int getMinCost() {
+        return minCost;
+    }
+
+    public void setMinCost(int minCost) {
+        this.minCost = minCost;
+    }
+
+    public int getMaxCost() {
+        return maxCost;
+    }
+
+    public void setMaxCost(int maxCost) {
+        this.maxCost = maxCost;
+    }
+}
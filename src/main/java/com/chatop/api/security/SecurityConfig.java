@@ -2,7 +2,13 @@ package com.chatop.api.security;
 
 // Configuration centrale de Spring Security pour l'application.
 
+import com.chatop.api.config.PasswordHashingExecutorConfig;
 import com.chatop.api.security.jwt.JwtAuthenticationFilter;
+import com.chatop.api.security.ratelimit.RateLimitFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -12,6 +18,7 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -20,24 +27,35 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
+// @Slf4j trace le coût BCrypt retenu au démarrage.
 // @Configuration indique que cette classe déclare des beans Spring.
 // @EnableMethodSecurity active les annotations de sécurité sur les méthodes (ex: @PreAuthorize).
+@Slf4j
 @Configuration
 @EnableMethodSecurity
 public class SecurityConfig {
 
+    // Identifiant de l'algorithme dans le préfixe des hashes ("{bcrypt}$2a$12$...").
+    private static final String BCRYPT = "bcrypt";
+
     // Filtre personnalisé qui vérifie la présence d'un token JWT dans chaque requête.
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    // Filtre limitant le débit des connexions et inscriptions.
+    private final RateLimitFilter rateLimitFilter;
     // Gestionnaire déclenché lorsqu'un utilisateur non authentifié accède à une ressource protégée.
     private final RestAuthenticationEntryPoint authenticationEntryPoint;
     // Gestionnaire pour les cas où l'utilisateur est authentifié mais pas autorisé.
     private final RestAccessDeniedHandler accessDeniedHandler;
 
     public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter,
+                          RateLimitFilter rateLimitFilter,
                           RestAuthenticationEntryPoint authenticationEntryPoint,
                           RestAccessDeniedHandler accessDeniedHandler) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.rateLimitFilter = rateLimitFilter;
         this.authenticationEntryPoint = authenticationEntryPoint;
         this.accessDeniedHandler = accessDeniedHandler;
     }
@@ -58,10 +76,12 @@ public class SecurityConfig {
                         .accessDeniedHandler(accessDeniedHandler))
                 // Définition des règles d'autorisation : certaines routes restent publiques, le reste nécessite une authentification.
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/auth/register", "/api/auth/login", "/v3/api-docs/**", "/swagger-ui.html", "/swagger-ui/**", "/files/**", "/actuator/health").permitAll()
+                        .requestMatchers("/api/auth/register", "/api/auth/login", "/api/auth/refresh", "/.well-known/jwks.json", "/v3/api-docs/**", "/swagger-ui.html", "/swagger-ui/**", "/files/**", "/actuator/health").permitAll()
                         .anyRequest().authenticated())
                 // Ajout du filtre JWT avant le filtre standard UsernamePasswordAuthenticationFilter.
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // Le limiteur passe en premier : une tentative refusée ne coûte ni vérification de jeton ni hachage.
+                .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class);
         return http.build();
     }
 
@@ -79,9 +99,27 @@ public class SecurityConfig {
     }
 
     // Bean responsable du hachage des mots de passe (BCrypt est une valeur sûre car adaptable et salée).
+    // Le coût est fixé par configuration ou calibré au démarrage sur la latence cible. Les hashes sont préfixés
+    // par leur algorithme ("{bcrypt}...") ; les anciens hashes sans préfixe restent vérifiés par BCrypt.
+    // Un hash de coût inférieur au coût courant (ou sans préfixe) est recalculé à la connexion suivante par
+    // CustomUserDetailsService.updatePassword : augmenter le coût ne demande aucune migration.
+    // Les calculs sont confiés au pool borné passwordHashing pour ne pas saturer les threads de requête.
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Qualifier(PasswordHashingExecutorConfig.PASSWORD_HASHING_EXECUTOR) ExecutorService executor,
+                                           PasswordHashingProperties properties,
+                                           MeterRegistry meterRegistry) {
+        int cost = properties.getCost() > 0
+                ? properties.getCost()
+                : BCryptCostCalibrator.calibrate(properties.getTargetLatency(), properties.getMinCost(), properties.getMaxCost());
+        log.info("Hashing passwords with BCrypt cost {}{}", cost, properties.getCost() > 0
+                ? "" : " (calibrated for " + properties.getTargetLatency().toMillis() + " ms per hash)");
+        Gauge.builder("auth.password.bcrypt.cost", () -> cost)
+                .description("BCrypt cost used for new password hashes")
+                .register(meterRegistry);
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(cost);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new BoundedPasswordEncoder(delegating, executor, properties.getMaxWait(), meterRegistry);
     }
 
     // Expose l'AuthenticationManager configuré par Spring pour pouvoir l'injecter dans AuthService.
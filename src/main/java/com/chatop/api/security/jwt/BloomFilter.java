@@ -0,0 +1,69 @@
+package com.chatop.api.security.jwt;
+
+// Filtre de Bloom concurrent sur des identifiants de tokens (UUID).
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Structure probabiliste compacte : mightContain ne se trompe jamais pour un élément ajouté, et ne répond à tort
+// "peut-être" que pour une petite proportion des autres (falsePositiveRate). Les bits sont rangés dans un
+// AtomicLongArray : les lectures sont de simples lectures volatiles et les ajouts des compareAndSet, sans verrou.
+// Les éléments étant des UUID aléatoires, leurs 128 bits servent directement de hachages (double hachage).
+public final class BloomFilter {
+
+    // Bits du filtre, par mots de 64.
+    private final AtomicLongArray words;
+    // Nombre de bits utilisables.
+    private final long bitCount;
+    // Nombre de positions testées par élément.
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.words = new AtomicLongArray((int) ((bitCount + 63) / 64));
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+    }
+
+    // Dimensionne le filtre pour expectedInsertions éléments et le taux de faux positifs visé
+    // (100 000 éléments à 1 % : environ 117 Ko et 7 hachages).
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long bits = Math.max(64, (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2))));
+        int hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        return new BloomFilter(bits, hashes);
+    }
+
+    // Ajoute un identifiant.
+    public void put(UUID id) {
+        long h1 = id.getMostSignificantBits();
+        long h2 = id.getLeastSignificantBits();
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(index);
+            while ((current & mask) == 0 && !words.compareAndSet(index, current, current | mask)) {
+                current = words.get(index);
+            }
+        }
+    }
+
+    // Indique si l'identifiant a pu être ajouté ; false est une certitude.
+    public boolean mightContain(UUID id) {
+        long h1 = id.getMostSignificantBits();
+        long h2 = id.getLeastSignificantBits();
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Taille du filtre en bits.
+    public long bitCount() {
+        return bitCount;
+    }
+}
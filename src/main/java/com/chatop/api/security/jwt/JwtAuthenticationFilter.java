@@ -2,6 +2,7 @@ package com.chatop.api.security.jwt;
 
 // Filtre Spring Security dédié à l'authentification via un token JWT.
 
+import com.chatop.api.security.AuthenticatedUser;
 import com.chatop.api.security.CustomUserDetailsService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -24,15 +25,23 @@ import java.io.IOException;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    // Service de gestion des tokens (extraction du username, validation...).
+    // Service de gestion des tokens (vérification de signature, extraction des claims...).
     private final JwtTokenService jwtTokenService;
     // Service personnalisé permettant de charger un utilisateur depuis la base à partir de son email.
     private final CustomUserDetailsService userDetailsService;
+    // Registre en mémoire des tokens révoqués, consulté sans requête SQL.
+    private final TokenRevocationRegistry revocationRegistry;
+    // Propriétés JWT : indiquent notamment si le principal peut être reconstruit depuis le token.
+    private final JwtProperties properties;
 
     public JwtAuthenticationFilter(JwtTokenService jwtTokenService,
-                                   CustomUserDetailsService userDetailsService) {
+                                   CustomUserDetailsService userDetailsService,
+                                   TokenRevocationRegistry revocationRegistry,
+                                   JwtProperties properties) {
         this.jwtTokenService = jwtTokenService;
         this.userDetailsService = userDetailsService;
+        this.revocationRegistry = revocationRegistry;
+        this.properties = properties;
     }
 
     // Méthode exécutée pour chaque requête HTTP : elle tente d'extraire un token et de l'utiliser pour authentifier l'utilisateur.
@@ -42,7 +51,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
         final String header = request.getHeader(HttpHeaders.AUTHORIZATION);
         final String token;
-        final String username;
+        final VerifiedToken verified;
 
         // Si l'entête Authorization est manquante ou n'utilise pas le schéma Bearer, on laisse la requête continuer sans modification.
         if (header == null || !header.startsWith("Bearer ")) {
@@ -52,18 +61,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         token = header.substring(7);
         try {
-            username = jwtTokenService.extractUsername(token);
+            // Une seule vérification (signature + expiration) par requête ; les tokens récents sont servis depuis le cache.
+            verified = jwtTokenService.verify(token);
         } catch (Exception ex) {
             // En cas de token invalide, on consigne l'information pour le débogage puis on laisse la chaîne poursuivre.
-            log.debug("Failed to extract username from token", ex);
+            log.debug("Failed to verify token", ex);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // Un token révoqué (déconnexion globale, changement de mot de passe...) est ignoré comme un token invalide.
+        if (revocationRegistry.isRevoked(verified)) {
+            log.debug("Rejected revoked token for {}", verified.subject());
             filterChain.doFilter(request, response);
             return;
         }
 
         // On n'authentifie que si aucun utilisateur n'est déjà présent dans le contexte pour éviter d'écraser une authentification existante.
+        String username = verified.subject();
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtTokenService.isTokenValid(token, userDetails)) {
+            UserDetails userDetails = resolvePrincipal(verified);
+            if (username.equals(userDetails.getUsername())) {
                 // On crée un objet d'authentification sans mot de passe (déjà vérifié via le token).
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
@@ -75,4 +93,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Poursuite de la chaîne de filtres : indispensable pour que la requête atteigne finalement le contrôleur.
         filterChain.doFilter(request, response);
     }
+
+    // En mode "stateless", le principal est reconstruit à partir des claims signés : aucune requête sur la table users.
+    // Les anciens tokens sans identifiant numérique, ou le mode classique, passent par le chargement en base.
+    private UserDetails resolvePrincipal(VerifiedToken verified) {
+        if (properties.isStatelessPrincipal() && verified.userId() != null) {
+            return AuthenticatedUser.fromClaims(verified.userId(), verified.subject(), verified.roles());
+        }
+        return userDetailsService.loadUserByUsername(verified.subject());
+    }
 }
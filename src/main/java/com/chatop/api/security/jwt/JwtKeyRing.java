@@ -0,0 +1,183 @@
+package com.chatop.api.security.jwt;
+
+// Trousseau des clés asymétriques (ES256) qui signent et vérifient les tokens JWT.
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// @Component : chargé une seule fois au démarrage.
+// Chaque clé est identifiée par un "kid" écrit dans l'entête des tokens : la vérification retrouve la clé publique
+// par une simple lecture de map. La rotation se fait sans déconnecter personne : on ajoute la nouvelle clé,
+// on la désigne comme active, et l'ancienne (clé publique seule) reste publiée le temps que ses tokens expirent.
+// Sans clé configurée, une paire éphémère est générée : pratique en développement, mais les tokens ne survivent
+// pas à un redémarrage et ne sont pas reconnus par les autres instances.
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    // Courbe de ES256.
+    private static final String CURVE = "secp256r1";
+
+    // Identifiant de la clé de signature courante.
+    private final String activeKid;
+    // Clé privée de signature courante.
+    private final PrivateKey activePrivateKey;
+    // Clés publiques de vérification, par kid (clé active et clés retirées encore valides), dans l'ordre de configuration.
+    private final Map<String, ECPublicKey> publicKeys;
+
+    public JwtKeyRing(JwtProperties properties) {
+        Map<String, ECPublicKey> keys = new LinkedHashMap<>();
+        PrivateKey signingKey = null;
+        List<JwtProperties.SigningKey> configured = properties.getSigningKeys();
+        if (configured.isEmpty()) {
+            KeyPair pair = generate();
+            String kid = "ephemeral-" + UUID.randomUUID();
+            log.warn("No JWT signing key configured (app.jwt.signing-keys), using ephemeral key {}: "
+                    + "tokens will not survive a restart nor be accepted by other instances", kid);
+            keys.put(kid, (ECPublicKey) pair.getPublic());
+            this.activeKid = kid;
+            this.activePrivateKey = pair.getPrivate();
+            this.publicKeys = Collections.unmodifiableMap(keys);
+            return;
+        }
+        String active = properties.getActiveKid() != null && !properties.getActiveKid().isBlank()
+                ? properties.getActiveKid() : configured.get(0).getKid();
+        for (JwtProperties.SigningKey key : configured) {
+            if (key.getKid() == null || key.getKid().isBlank() || key.getPublicKey() == null) {
+                throw new IllegalStateException("Each JWT signing key needs a kid and a public key");
+            }
+            keys.put(key.getKid(), readPublicKey(key.getKid(), key.getPublicKey()));
+            if (key.getKid().equals(active)) {
+                if (key.getPrivateKey() == null) {
+                    throw new IllegalStateException("Active JWT signing key " + active + " has no private key");
+                }
+                signingKey = readPrivateKey(key.getKid(), key.getPrivateKey());
+            }
+        }
+        if (signingKey == null) {
+            throw new IllegalStateException("Active JWT signing key " + active + " is not configured");
+        }
+        checkPair(active, signingKey, keys.get(active));
+        this.activeKid = active;
+        this.activePrivateKey = signingKey;
+        this.publicKeys = Collections.unmodifiableMap(keys);
+        log.info("JWT tokens signed with key {} ({} verification keys)", activeKid, keys.size());
+    }
+
+    public String activeKid() {
+        return activeKid;
+    }
+
+    public PrivateKey activePrivateKey() {
+        return activePrivateKey;
+    }
+
+    // Clé publique d'un kid, ou null s'il est inconnu.
+    public PublicKey publicKey(String kid) {
+        return kid != null ? publicKeys.get(kid) : null;
+    }
+
+    // Représentation JWK (RFC 7517) de toutes les clés de vérification, publiée sur /.well-known/jwks.json.
+    public List<Map<String, Object>> jwks() {
+        return publicKeys.entrySet().stream()
+                .map(entry -> {
+                    Map<String, Object> jwk = new LinkedHashMap<>();
+                    jwk.put("kty", "EC");
+                    jwk.put("crv", "P-256");
+                    jwk.put("kid", entry.getKey());
+                    jwk.put("use", "sig");
+                    jwk.put("alg", "ES256");
+                    jwk.put("x", coordinate(entry.getValue().getW().getAffineX()));
+                    jwk.put("y", coordinate(entry.getValue().getW().getAffineY()));
+                    return jwk;
+                })
+                .toList();
+    }
+
+    private static KeyPair generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec(CURVE));
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate an ES256 key pair", e);
+        }
+    }
+
+    // Signe puis vérifie un message avec la paire active : une clé privée qui ne correspond pas à la clé publique
+    // publiée démarrerait sans erreur, mais aucun des tokens qu'elle signe ne serait accepté, sur aucune instance.
+    private static void checkPair(String kid, PrivateKey privateKey, PublicKey publicKey) {
+        try {
+            byte[] challenge = UUID.randomUUID().toString().getBytes(StandardCharsets.US_ASCII);
+            Signature signer = Signature.getInstance("SHA256withECDSA");
+            signer.initSign(privateKey);
+            signer.update(challenge);
+            byte[] signature = signer.sign();
+            Signature verifier = Signature.getInstance("SHA256withECDSA");
+            verifier.initVerify(publicKey);
+            verifier.update(challenge);
+            if (!verifier.verify(signature)) {
+                throw new IllegalStateException("Private and public keys of JWT key " + kid + " do not match");
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign with JWT key " + kid, e);
+        }
+    }
+
+    // Clé publique au format PEM "PUBLIC KEY" (X.509), qui doit être sur la courbe P-256.
+    private static ECPublicKey readPublicKey(String kid, String pem) {
+        try {
+            PublicKey key = KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(decodePem(pem)));
+            if (!(key instanceof ECPublicKey ecKey) || ecKey.getParams().getCurve().getField().getFieldSize() != 256) {
+                throw new IllegalStateException("JWT key " + kid + " is not a P-256 key");
+            }
+            return ecKey;
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid public key for JWT key " + kid, e);
+        }
+    }
+
+    // Clé privée au format PEM "PRIVATE KEY" (PKCS#8).
+    private static PrivateKey readPrivateKey(String kid, String pem) {
+        try {
+            return KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(decodePem(pem)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid private key for JWT key " + kid, e);
+        }
+    }
+
+    // Accepte le PEM complet (avec ou sans retours à la ligne) ou le seul contenu Base64.
+    private static byte[] decodePem(String pem) {
+        String base64 = pem.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+
+    // Coordonnée du point encodée sur 32 octets non signés, en Base64url sans remplissage.
+    private static String coordinate(BigInteger value) {
+        byte[] raw = value.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(raw.length, 32);
+        System.arraycopy(raw, raw.length - length, fixed, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+}
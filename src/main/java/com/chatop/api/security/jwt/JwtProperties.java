@@ -5,6 +5,10 @@ package com.chatop.api.security.jwt;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 // @Configuration indique que cette classe peut être utilisée comme source de configuration Spring.
 @Configuration
 // @ConfigurationProperties lit les propriétés commençant par "app.jwt" et les mappe sur les champs de cette classe.
@@ -12,15 +16,61 @@ import org.springframework.context.annotation.Configuration;
 public class JwtProperties {
 
     /**
-     * Secret used to sign JWT tokens.
+     * Former HS256 secret. Tokens are now signed with ES256; when set, HS256 tokens issued before the switch are
+     * still accepted until they expire. Leave empty once they have.
      */
     private String secret;
 
+    /**
+     * ES256 key pairs, identified by the "kid" header of the tokens. Retired keys only need their public key.
+     */
+    private List<SigningKey> signingKeys = new ArrayList<>();
+
+    /**
+     * Kid of the key used to sign new tokens (defaults to the first configured key).
+     */
+    private String activeKid;
+
+    /**
+     * How long clients may cache the JWKS document.
+     */
+    private Duration jwksMaxAge = Duration.ofMinutes(5);
+
     /**
      * JWT validity in seconds.
      */
     private long expirationSeconds;
 
+    /**
+     * Validity in seconds of the HS256 tokens issued before the switch to ES256; only relevant while "secret" is set.
+     */
+    private long legacyExpirationSeconds = 86_400;
+
+    /**
+     * Refresh token validity in seconds.
+     */
+    private long refreshExpirationSeconds = 2_592_000;
+
+    /**
+     * Maximum number of verified tokens kept in memory (0 disables the cache).
+     */
+    private long verifiedCacheSize = 10_000;
+
+    /**
+     * Build the authenticated principal from the token claims instead of loading the user from the database.
+     */
+    private boolean statelessPrincipal;
+
+    /**
+     * Number of revoked token identifiers the in-memory revocation filter is sized for; it grows on rebuild if exceeded.
+     */
+    private long revocationFilterCapacity = 100_000;
+
+    /**
+     * Target false positive rate of the revocation filter; each false positive costs one database lookup.
+     */
+    private double revocationFilterFalsePositiveRate = 0.01;
+
     // Getters et setters standards afin que Spring puisse injecter les valeurs configurées.
     public String getSecret() {
         return secret;
@@ -30,6 +80,30 @@ public class JwtProperties {
         this.secret = secret;
     }
 
+    public List<SigningKey> getSigningKeys() {
+        return signingKeys;
+    }
+
+    public void setSigningKeys(List<SigningKey> signingKeys) {
+        this.signingKeys = signingKeys;
+    }
+
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    public void setActiveKid(String activeKid) {
+        this.activeKid = activeKid;
+    }
+
+    public Duration getJwksMaxAge() {
+        return jwksMaxAge;
+    }
+
+    public void setJwksMaxAge(Duration jwksMaxAge) {
+        this.jwksMaxAge = jwksMaxAge;
+    }
+
     public long getExpirationSeconds() {
         return expirationSeconds;
     }
@@ -37,4 +111,102 @@ public class JwtProperties {
     public void setExpirationSeconds(long expirationSeconds) {
         this.expirationSeconds = expirationSeconds;
     }
+
+    public long getLegacyExpirationSeconds() {
+        return legacyExpirationSeconds;
+    }
+
+    public void setLegacyExpirationSeconds(long legacyExpirationSeconds) {
+        this.legacyExpirationSeconds = legacyExpirationSeconds;
+    }
+
+    // Plus longue durée de vie d'un token encore accepté : celle des anciens tokens HS256 tant que le secret est
+    // configuré. Une révocation doit rester connue au moins aussi longtemps.
+    public long longestAcceptedLifetimeSeconds() {
+        boolean legacyAccepted = secret != null && !secret.isBlank();
+        return legacyAccepted ? Math.max(expirationSeconds, legacyExpirationSeconds) : expirationSeconds;
+    }
+
+    public long getRefreshExpirationSeconds() {
+        return refreshExpirationSeconds;
+    }
+
+    public void setRefreshExpirationSeconds(long refreshExpirationSeconds) {
+        this.refreshExpirationSeconds = refreshExpirationSeconds;
+    }
+
+    public long getVerifiedCacheSize() {
+        return verifiedCacheSize;
+    }
+
+    public void setVerifiedCacheSize(long verifiedCacheSize) {
+        this.verifiedCacheSize = verifiedCacheSize;
+    }
+
+    public boolean isStatelessPrincipal() {
+        return statelessPrincipal;
+    }
+
+    public void setStatelessPrincipal(boolean statelessPrincipal) {
+        this.statelessPrincipal = statelessPrincipal;
+    }
+
+    public long getRevocationFilterCapacity() {
+        return revocationFilterCapacity;
+    }
+
+    public void setRevocationFilterCapacity(long revocationFilterCapacity) {
+        this.revocationFilterCapacity = revocationFilterCapacity;
+    }
+
+    public double getRevocationFilterFalsePositiveRate() {
+        return revocationFilterFalsePositiveRate;
+    }
+
+    public void setRevocationFilterFalsePositiveRate(double revocationFilterFalsePositiveRate) {
+        this.revocationFilterFalsePositiveRate = revocationFilterFalsePositiveRate;
+    }
+
+    // Configuration d'une clé app.jwt.signing-keys[n].*
+    public static class SigningKey {
+
+        /**
+         * Key identifier, written in the "kid" header of the tokens it signs.
+         */
+        private String kid;
+
+        /**
+         * PKCS#8 PEM private key ("PRIVATE KEY"); only required for the active key.
+         */
+        private String privateKey;
+
+        /**
+         * X.509 PEM public key ("PUBLIC KEY") on the P-256 curve.
+         */
+        private String publicKey;
+
+        public String getKid() {
+            return kid;
+        }
+
+        public void setKid(String kid) {
+            this.kid = kid;
+        }
+
+        public String getPrivateKey() {
+            return privateKey;
+        }
+
+        public void setPrivateKey(String privateKey) {
+            this.privateKey = privateKey;
+        }
+
+        public String getPublicKey() {
+            return publicKey;
+        }
+
+        public void setPublicKey(String publicKey) {
+            this.publicKey = publicKey;
+        }
+    }
 }
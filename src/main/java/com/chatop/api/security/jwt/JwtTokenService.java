@@ -2,80 +2,208 @@ package com.chatop.api.security.jwt;
 
 // Ce package regroupe les classes utilitaires pour gérer les JSON Web Tokens (JWT).
 
+import com.chatop.api.security.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 // @Component signale que ce service est un bean Spring réutilisable dans toute l'application.
 @Component
 public class JwtTokenService {
 
-    // Les propriétés (clé secrète, durée de validité...) sont injectées via JwtProperties.
+    // Noms des claims personnalisés : identifiant en base et rôles de l'utilisateur.
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLES_CLAIM = "roles";
+
+    // Les propriétés (durée de validité, taille du cache...) sont injectées via JwtProperties.
     private final JwtProperties properties;
-    // Clé symétrique utilisée pour signer et vérifier les tokens.
-    private final SecretKey secretKey;
+    // Clés ES256 : clé privée de signature et clés publiques de vérification par kid.
+    private final JwtKeyRing keyRing;
+    // Ancienne clé symétrique HS256, conservée pour vérifier les tokens émis avant le passage à ES256 (null sinon).
+    private final SecretKey legacySecretKey;
+    // Parser construit une seule fois : il est immuable et thread-safe, inutile de le recréer à chaque appel.
+    // La clé de vérification est choisie d'après le kid de l'entête, par une lecture de map.
+    private final JwtParser parser;
+    // Cache borné des tokens déjà vérifiés, indexé par l'empreinte SHA-256 du token (null si désactivé).
+    private final Cache<String, VerifiedToken> verifiedTokens;
 
-    public JwtTokenService(JwtProperties properties) {
+    public JwtTokenService(JwtProperties properties, JwtKeyRing keyRing) {
         this.properties = properties;
-        // La clé est fournie en Base64 dans la configuration : on la décode puis on construit une clé HMAC SHA.
-        this.secretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(properties.getSecret()));
+        this.keyRing = keyRing;
+        this.legacySecretKey = properties.getSecret() != null && !properties.getSecret().isBlank()
+                ? Keys.hmacShaKeyFor(Decoders.BASE64.decode(properties.getSecret()))
+                : null;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new KeyRingResolver())
+                .build();
+        this.verifiedTokens = properties.getVerifiedCacheSize() > 0
+                ? Caffeine.newBuilder()
+                .maximumSize(properties.getVerifiedCacheSize())
+                .expireAfter(new TokenExpiry())
+                .build()
+                : null;
     }
 
     // Génère un token signé contenant l'identité de l'utilisateur et la date d'expiration.
     public String generateToken(UserDetails userDetails) {
         Instant now = Instant.now();
         Instant expiry = now.plusSeconds(properties.getExpirationSeconds());
+        // Identifiant et rôles sont embarqués pour que le filtre puisse reconstruire le principal sans requête SQL.
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof AuthenticatedUser authenticatedUser && authenticatedUser.getId() != null) {
+            claims.put(USER_ID_CLAIM, authenticatedUser.getId());
+        }
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
         return Jwts.builder()
+                // Identifiant de la clé de signature : permet aux vérificateurs de choisir la bonne clé publique.
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.activeKid())
+                // Identifiant unique (jti) : permet de révoquer ce token précis lors d'une déconnexion.
+                .setId(UUID.randomUUID().toString())
                 // Subject : identifiant principal du token (ici le login de l'utilisateur).
                 .setSubject(userDetails.getUsername())
-                // On ajoute des claims supplémentaires si besoin (ici un alias "uid").
-                .addClaims(Map.of("uid", userDetails.getUsername()))
+                // On ajoute des claims supplémentaires (identifiant en base et rôles).
+                .addClaims(claims)
                 // Date d'émission : utile pour invalider un token trop ancien.
                 .setIssuedAt(Date.from(now))
                 // Date d'expiration : protège contre l'utilisation d'un token indéfiniment.
                 .setExpiration(Date.from(expiry))
-                // Signature avec la clé secrète et l'algorithme HS256.
-                .signWith(secretKey, SignatureAlgorithm.HS256)
+                // Signature asymétrique ES256 : seule l'application détient la clé privée, la clé publique est publiée (JWKS).
+                .signWith(keyRing.activePrivateKey(), SignatureAlgorithm.ES256)
                 .compact();
     }
 
+    // Vérifie le token une seule fois (signature + expiration) et renvoie un instantané de ses claims.
+    // Un token identique déjà vérifié est servi depuis le cache sans revérifier sa signature ECDSA.
+    // Lève une JwtException si le token est invalide ou expiré.
+    public VerifiedToken verify(String token) {
+        if (verifiedTokens == null) {
+            return parse(token);
+        }
+        String key = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            // Le cache expire les entrées à l'échéance du token, mais on revérifie par sécurité (précision de l'horloge du cache).
+            if (cached.isExpiredAt(Instant.now())) {
+                verifiedTokens.invalidate(key);
+                throw new ExpiredJwtException(null, null, "JWT expired at " + cached.expiresAt());
+            }
+            return cached;
+        }
+        VerifiedToken verified = parse(token);
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+
     // Vérifie que le token correspond bien à l'utilisateur attendu et qu'il n'est pas expiré.
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        VerifiedToken verified = verify(token);
+        return verified.subject().equals(userDetails.getUsername()) && !verified.isExpiredAt(Instant.now());
     }
 
     // Récupère le login stocké dans le sujet du token.
     public String extractUsername(String token) {
-        return parseClaims(token).getSubject();
+        return verify(token).subject();
     }
 
     // Détermine si la date d'expiration est passée.
     public boolean isTokenExpired(String token) {
-        Date expiration = parseClaims(token).getExpiration();
-        return expiration.before(new Date());
+        return verify(token).isExpiredAt(Instant.now());
     }
 
-    // Méthode interne qui parse le token et renvoie les "claims" (données embarquées) après validation de la signature.
-    private Claims parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // Méthode interne qui parse le token et renvoie un instantané des claims après validation de la signature.
+    private VerifiedToken parse(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        // Les anciens tokens portaient l'email dans "uid" : seul un identifiant numérique est retenu.
+        Object uid = claims.get(USER_ID_CLAIM);
+        Object roles = claims.get(ROLES_CLAIM);
+        return new VerifiedToken(
+                claims.getSubject(),
+                uid instanceof Number number ? number.longValue() : null,
+                roles instanceof List<?> list ? list.stream().map(String::valueOf).toList() : List.of(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant(),
+                claims.getId());
+    }
+
+    // Empreinte SHA-256 du token : la clé du cache ne conserve pas le token brut en mémoire.
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
     // Expose la durée de validité (en secondes) pour que d'autres composants puissent l'afficher ou la transmettre.
     public long getExpirationSeconds() {
         return properties.getExpirationSeconds();
     }
+
+    // Sélection de la clé de vérification : clé publique du kid, ou ancienne clé HS256 pour un token sans kid.
+    // jjwt refuse de lui-même une clé qui ne correspond pas à l'algorithme annoncé (pas de confusion HS256/ES256).
+    private final class KeyRingResolver extends SigningKeyResolverAdapter {
+
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            String kid = header.getKeyId();
+            if (kid == null) {
+                if (legacySecretKey != null && SignatureAlgorithm.HS256.getValue().equals(header.getAlgorithm())) {
+                    return legacySecretKey;
+                }
+                throw new UnsupportedJwtException("Token has no key id");
+            }
+            Key key = keyRing.publicKey(kid);
+            if (key == null) {
+                throw new UnsupportedJwtException("Unknown signing key " + kid);
+            }
+            return key;
+        }
+    }
+
+    // Politique d'expiration du cache : chaque entrée disparaît au moment où le token lui-même expire.
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,78 @@
+package com.chatop.api.security.jwt;
+
+// Accès JDBC à la table des révocations de tokens.
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+// Deux sortes de lignes : la révocation d'un token précis (jti renseigné, déconnexion) et celle de tous les tokens
+// d'un utilisateur émis avant not_before (déconnexion de toutes les sessions). expires_at indique quand la ligne
+// devient inutile, les tokens concernés ayant tous expiré. Accès JDBC direct, sans entité JPA, comme les seaux
+// du limiteur de débit : ces lignes ne sont jamais manipulées comme des objets métier.
+@Repository
+public class RevokedTokenRepository {
+
+    // Requêtes SQL sur revoked_tokens.
+    private final JdbcTemplate jdbcTemplate;
+
+    public RevokedTokenRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Enregistre la révocation d'un token identifié par son jti.
+    public void revokeToken(String jti, String subject, Instant expiresAt) {
+        jdbcTemplate.update("INSERT INTO revoked_tokens (jti, subject, not_before, expires_at, created_at) VALUES (?, ?, NULL, ?, ?)",
+                jti, subject, Timestamp.from(expiresAt), Timestamp.from(Instant.now()));
+    }
+
+    // Enregistre la révocation de tous les tokens d'un utilisateur émis avant notBefore.
+    public void revokeSubject(String subject, Instant notBefore, Instant expiresAt) {
+        jdbcTemplate.update("INSERT INTO revoked_tokens (jti, subject, not_before, expires_at, created_at) VALUES (NULL, ?, ?, ?, ?)",
+                subject, Timestamp.from(notBefore), Timestamp.from(expiresAt), Timestamp.from(Instant.now()));
+    }
+
+    // Vérification exacte d'un jti, après un positif du filtre de Bloom.
+    public boolean isTokenRevoked(String jti) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revoked_tokens WHERE jti = ?", Integer.class, jti);
+        return count != null && count > 0;
+    }
+
+    // Nombre de révocations encore utiles, pour dimensionner le filtre.
+    public long countActive(Instant now) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revoked_tokens WHERE expires_at > ?", Long.class, Timestamp.from(now));
+        return count != null ? count : 0;
+    }
+
+    // Parcourt les révocations encore utiles.
+    public void forEachActive(Instant now, Consumer<Revocation> consumer) {
+        jdbcTemplate.query("SELECT jti, subject, not_before FROM revoked_tokens WHERE expires_at > ?",
+                rowHandler(consumer), Timestamp.from(now));
+    }
+
+    // Parcourt les révocations enregistrées depuis une date (rafraîchissement incrémental, index sur created_at).
+    public void forEachCreatedSince(Instant since, Consumer<Revocation> consumer) {
+        jdbcTemplate.query("SELECT jti, subject, not_before FROM revoked_tokens WHERE created_at >= ?",
+                rowHandler(consumer), Timestamp.from(since));
+    }
+
+    // Supprime les révocations dont tous les tokens ont expiré.
+    public int deleteExpired(Instant now) {
+        return jdbcTemplate.update("DELETE FROM revoked_tokens WHERE expires_at <= ?", Timestamp.from(now));
+    }
+
+    private static RowCallbackHandler rowHandler(Consumer<Revocation> consumer) {
+        return rs -> {
+            Timestamp notBefore = rs.getTimestamp(3);
+            consumer.accept(new Revocation(rs.getString(1), rs.getString(2), notBefore != null ? notBefore.toInstant() : null));
+        };
+    }
+
+    // Une ligne de revoked_tokens : jti renseigné pour un token précis, notBefore pour tous les tokens d'un utilisateur.
+    public record Revocation(String jti, String subject, Instant notBefore) {
+    }
+}
@@ -0,0 +1,161 @@
+package com.chatop.api.security.jwt;
+
+// Registre des révocations de tokens, consulté par le filtre JWT sans accès à la base dans le cas courant.
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+// @Component : un seul registre partagé par toute l'application.
+// Les révocations sont enregistrées dans la table revoked_tokens, partagée par toutes les instances, et reflétées
+// en mémoire : les coupures par utilisateur dans une map, les jti révoqués dans un filtre de Bloom. Pour un token
+// non révoqué (le cas courant), la vérification se limite à une lecture de map et à quelques lectures de bits.
+// Seul un positif du filtre (token réellement révoqué ou faux positif, 1 % par défaut) est confirmé en base,
+// et la réponse est ensuite gardée en cache. Le registre relit périodiquement les révocations récentes
+// (revocation-refresh-interval) : une révocation faite sur une autre instance y est prise en compte sous ce délai.
+@Slf4j
+@Component
+public class TokenRevocationRegistry {
+
+    // Marge relue à chaque rafraîchissement, pour les révocations validées après la lecture précédente
+    // ou horodatées par une instance dont l'horloge retarde légèrement.
+    private static final Duration REFRESH_OVERLAP = Duration.ofSeconds(30);
+
+    // Table des révocations.
+    private final RevokedTokenRepository repository;
+    // Durée de vie des tokens et dimensionnement du filtre.
+    private final JwtProperties properties;
+    // Pour chaque utilisateur révoqué : date avant laquelle ses tokens ne sont plus acceptés.
+    // Une entrée devient inutile une fois que tous les tokens émis avant elle ont expiré, d'où l'expiration automatique.
+    private final Cache<String, Instant> notBefore;
+    // Réponses de la base pour les jti signalés par le filtre de Bloom (révoqué ou faux positif).
+    private final Cache<String, Boolean> confirmed;
+    // Filtre des jti révoqués, reconstruit périodiquement pour oublier les tokens expirés.
+    private volatile BloomFilter revokedIds;
+    // Date de la dernière lecture des révocations en base.
+    private volatile Instant lastRefresh;
+
+    public TokenRevocationRegistry(RevokedTokenRepository repository, JwtProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+        // Durée de vie la plus longue parmi les tokens acceptés (anciens tokens HS256 compris) : une coupure oubliée
+        // plus tôt rendrait valides des tokens révoqués.
+        Duration tokenLifetime = Duration.ofSeconds(Math.max(1, properties.longestAcceptedLifetimeSeconds()));
+        this.notBefore = Caffeine.newBuilder()
+                .expireAfterWrite(tokenLifetime)
+                .build();
+        this.confirmed = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(tokenLifetime)
+                .build();
+        rebuild();
+    }
+
+    // Révoque un token précis (déconnexion). Un ancien token sans jti ne peut être désigné individuellement :
+    // on révoque alors les tokens de l'utilisateur émis jusqu'à la même seconde.
+    public void revoke(VerifiedToken token) {
+        if (token.id() == null) {
+            revokeIssuedBefore(token.subject(), (token.issuedAt() != null ? token.issuedAt() : Instant.now()).plusSeconds(1));
+            return;
+        }
+        repository.revokeToken(token.id(), token.subject(), token.expiresAt());
+        addRevokedId(token.id());
+    }
+
+    // Révoque tous les tokens d'un utilisateur émis avant la date indiquée (changement de mot de passe, déconnexion globale...).
+    // La date "iat" d'un JWT est à la seconde : on tronque pour ne pas rejeter un token émis juste après la révocation.
+    public void revokeIssuedBefore(String subject, Instant cutoff) {
+        Instant truncated = cutoff.truncatedTo(ChronoUnit.SECONDS);
+        repository.revokeSubject(subject, truncated, truncated.plusSeconds(properties.longestAcceptedLifetimeSeconds()));
+        applyCutoff(subject, truncated);
+    }
+
+    // Vérifie si le token a été révoqué : lectures en mémoire, une requête SQL seulement si le filtre répond "peut-être".
+    public boolean isRevoked(VerifiedToken token) {
+        Instant cutoff = notBefore.getIfPresent(token.subject());
+        if (cutoff != null && (token.issuedAt() == null || token.issuedAt().isBefore(cutoff))) {
+            return true;
+        }
+        String id = token.id();
+        if (id == null) {
+            return false;
+        }
+        UUID uuid = parse(id);
+        if (uuid != null && !revokedIds.mightContain(uuid)) {
+            return false;
+        }
+        return confirmed.get(id, repository::isTokenRevoked);
+    }
+
+    // Rafraîchissement incrémental : intègre les révocations enregistrées depuis la lecture précédente.
+    @Scheduled(initialDelayString = "${app.jwt.revocation-refresh-interval:PT5S}",
+            fixedDelayString = "${app.jwt.revocation-refresh-interval:PT5S}")
+    public void refresh() {
+        Instant now = Instant.now();
+        repository.forEachCreatedSince(lastRefresh.minus(REFRESH_OVERLAP), this::apply);
+        lastRefresh = now;
+    }
+
+    // Reconstruction complète : purge les révocations dont les tokens ont expiré et redimensionne le filtre
+    // (un filtre de Bloom ne permet pas de retirer un élément). Le nouveau filtre est rempli avant d'être publié :
+    // jusque-là, isRevoked continue d'interroger l'ancien, qui contient déjà toutes les révocations actives.
+    @Scheduled(initialDelayString = "${app.jwt.revocation-rebuild-interval:PT15M}",
+            fixedDelayString = "${app.jwt.revocation-rebuild-interval:PT15M}")
+    public void rebuild() {
+        Instant now = Instant.now();
+        repository.deleteExpired(now);
+        long active = repository.countActive(now);
+        BloomFilter filter = BloomFilter.create(Math.max(properties.getRevocationFilterCapacity(), 2 * active),
+                properties.getRevocationFilterFalsePositiveRate());
+        repository.forEachActive(now, revocation -> apply(filter, revocation));
+        revokedIds = filter;
+        // Une révocation faite pendant le remplissage a pu n'atteindre que l'ancien filtre : on relit les plus récentes.
+        repository.forEachCreatedSince(now.minus(REFRESH_OVERLAP), this::apply);
+        lastRefresh = now;
+        log.debug("Token revocation filter rebuilt with {} active revocations ({} bits)", active, filter.bitCount());
+    }
+
+    private void apply(RevokedTokenRepository.Revocation revocation) {
+        apply(revokedIds, revocation);
+    }
+
+    private void apply(BloomFilter filter, RevokedTokenRepository.Revocation revocation) {
+        if (revocation.jti() != null) {
+            addRevokedId(filter, revocation.jti());
+        } else if (revocation.notBefore() != null) {
+            applyCutoff(revocation.subject(), revocation.notBefore());
+        }
+    }
+
+    private void addRevokedId(String id) {
+        addRevokedId(revokedIds, id);
+    }
+
+    private void addRevokedId(BloomFilter filter, String id) {
+        UUID uuid = parse(id);
+        if (uuid != null) {
+            filter.put(uuid);
+        }
+        confirmed.put(id, true);
+    }
+
+    private void applyCutoff(String subject, Instant cutoff) {
+        notBefore.asMap().merge(subject, cutoff, (current, candidate) -> candidate.isAfter(current) ? candidate : current);
+    }
+
+    // Les jti émis par JwtTokenService sont des UUID ; tout autre format est vérifié directement en base.
+    private static UUID parse(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
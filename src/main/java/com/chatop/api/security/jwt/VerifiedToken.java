@@ -0,0 +1,27 @@
+package com.chatop.api.security.jwt;
+
+// Instantané immuable des informations extraites d'un token JWT dont la signature a déjà été vérifiée.
+
+import java.time.Instant;
+import java.util.List;
+
+// Record renvoyé par JwtTokenService.verify : une seule vérification fournit tout ce dont le filtre a besoin.
+public record VerifiedToken(
+        // Sujet du token (email de l'utilisateur).
+        String subject,
+        // Identifiant en base de l'utilisateur (null pour les anciens tokens qui ne le portaient pas).
+        Long userId,
+        // Rôles accordés au moment de l'émission du token.
+        List<String> roles,
+        // Date d'émission du token.
+        Instant issuedAt,
+        // Date d'expiration du token.
+        Instant expiresAt,
+        // Identifiant unique du token (claim jti), null pour les tokens émis avant son introduction.
+        String id
+) {
+    // Indique si le token est expiré à l'instant fourni.
+    public boolean isExpiredAt(Instant instant) {
+        return !expiresAt.isAfter(instant);
+    }
+}
@@ -0,0 +1,44 @@
+package com.chatop.api.security.ratelimit;
+
+// Seaux à jetons conservés en mémoire, propres à chaque nœud.
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Store par défaut (app.rate-limit.store=local). Chaque seau est un AtomicLong mis à jour par compareAndSet :
+// aucune requête ne prend de verrou, même sur une même clé. La table est bornée (maxKeys) et un seau inutilisé
+// pendant la plus longue période configurée est oublié : il serait de toute façon revenu plein.
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "store", havingValue = "local", matchIfMissing = true)
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    // État des seaux, indexé par clé ("login-ip:203.0.113.7", "login:alice@example.com"...).
+    private final Cache<String, AtomicLong> buckets;
+
+    public InMemoryRateLimitStore(RateLimitProperties properties) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxKeys())
+                .expireAfterAccess(properties.longestPeriod())
+                .build();
+    }
+
+    @Override
+    public Duration tryConsume(String key, RateLimitProperties.Limit limit) {
+        AtomicLong bucket = buckets.get(key, ignored -> new AtomicLong());
+        while (true) {
+            long current = bucket.get();
+            long next = RateLimitStore.admit(current, System.currentTimeMillis(), limit);
+            if (next < 0) {
+                return Duration.ofMillis(-next);
+            }
+            if (bucket.compareAndSet(current, next)) {
+                return Duration.ZERO;
+            }
+        }
+    }
+}
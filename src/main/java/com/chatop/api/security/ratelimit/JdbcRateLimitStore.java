@@ -0,0 +1,77 @@
+package com.chatop.api.security.ratelimit;
+
+// Seaux à jetons partagés entre plusieurs nœuds via la base de données.
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+// Activé par app.rate-limit.store=jdbc. La ligne du seau est verrouillée (SELECT ... FOR UPDATE) le temps de le
+// mettre à jour : deux nœuds ne peuvent pas accepter le même jeton. Elle est créée au préalable, hors transaction
+// (une ligne à 0 équivaut à une clé inconnue) : verrouiller une clé absente poserait sous InnoDB un verrou d'intervalle,
+// et deux nœuds arrivant en même temps sur une nouvelle clé s'interbloqueraient sur leur INSERT. Le coût, trois
+// requêtes SQL courtes par tentative, reste négligeable devant le hachage BCrypt qu'il protège. L'horloge des nœuds
+// doit être synchronisée (NTP).
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "store", havingValue = "jdbc")
+public class JdbcRateLimitStore implements RateLimitStore {
+
+    // Accès JDBC direct : une ligne par seau, sans entité JPA.
+    private final JdbcTemplate jdbcTemplate;
+    // Transaction courte englobant lecture verrouillée et mise à jour.
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcRateLimitStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public Duration tryConsume(String key, RateLimitProperties.Limit limit) {
+        try {
+            return consume(key, limit);
+        } catch (PessimisticLockingFailureException first) {
+            // Attente de verrou expirée ou transaction choisie comme victime d'un interblocage : on réessaie une fois.
+            try {
+                return consume(key, limit);
+            } catch (PessimisticLockingFailureException e) {
+                // Seau disputé au point de ne pas pouvoir être verrouillé : la clé est martelée, la tentative est
+                // refusée (429) plutôt que de remonter en 500.
+                log.warn("Rate limit bucket {} could not be locked, attempt rejected", key, e);
+                return Duration.ofMillis(limit.emissionIntervalMillis());
+            }
+        }
+    }
+
+    private Duration consume(String key, RateLimitProperties.Limit limit) {
+        jdbcTemplate.update("INSERT INTO rate_limit_buckets (bucket_key, theoretical_arrival) VALUES (?, 0) "
+                + "ON DUPLICATE KEY UPDATE bucket_key = bucket_key", key);
+        return transactionTemplate.execute(status -> {
+            // Ligne absente uniquement si la purge l'a supprimée entre-temps : le seau était alors plein, et ce seul
+            // jeton n'est pas décompté.
+            long current = jdbcTemplate.query(
+                    "SELECT theoretical_arrival FROM rate_limit_buckets WHERE bucket_key = ? FOR UPDATE",
+                    rs -> rs.next() ? rs.getLong(1) : 0L, key);
+            long next = RateLimitStore.admit(current, System.currentTimeMillis(), limit);
+            if (next < 0) {
+                return Duration.ofMillis(-next);
+            }
+            jdbcTemplate.update("UPDATE rate_limit_buckets SET theoretical_arrival = ? WHERE bucket_key = ?", next, key);
+            return Duration.ZERO;
+        });
+    }
+
+    // Supprime les seaux revenus pleins (instant théorique dépassé) : ils se comportent comme une clé inconnue.
+    @Scheduled(fixedDelayString = "${app.rate-limit.purge-interval:PT10M}")
+    public void purgeFullBuckets() {
+        jdbcTemplate.update("DELETE FROM rate_limit_buckets WHERE theoretical_arrival < ?", System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,226 @@
+package com.chatop.api.security.ratelimit;
+
+// Filtre limitant le débit des connexions et inscriptions, avant tout hachage de mot de passe.
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+
+// @Component : ajouté à la chaîne Spring Security par SecurityConfig, devant le filtre JWT.
+// Les routes de connexion et d'inscription sont publiques et coûtent chacune un hachage BCrypt : sans limite,
+// une attaque par bourrage d'identifiants se traduit directement en saturation du CPU. Les tentatives sont
+// comptées par adresse IP et, pour la connexion, par identifiant (attaque distribuée sur un même compte).
+// Au-delà, la réponse est un 429 avec Retry-After, sans que le corps de la requête ne soit traité.
+// Derrière un proxy, server.forward-headers-strategy doit être configuré pour que l'adresse du client soit la bonne.
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String LOGIN_PATH = "/api/auth/login";
+    private static final String REGISTER_PATH = "/api/auth/register";
+
+    // Taille maximale d'un corps de connexion, lu en entier pour en extraire l'identifiant. Un corps plus gros est
+    // refusé (413) : il échapperait sinon à la limite par identifiant, par exemple complété d'espaces.
+    private static final int MAX_INSPECTED_BODY = 8 * 1024;
+
+    // Paramètres des limites.
+    private final RateLimitProperties properties;
+    // Store des seaux (local ou partagé).
+    private final RateLimitStore store;
+    // Lecture de l'identifiant dans le corps JSON et écriture de la réponse d'erreur.
+    private final ObjectMapper objectMapper;
+    // Compteur des requêtes refusées, par limite.
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(RateLimitProperties properties, RateLimitStore store,
+                           ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!properties.isEnabled() || !HttpMethod.POST.matches(request.getMethod())) {
+            return true;
+        }
+        String path = path(request);
+        return !path.equals(LOGIN_PATH) && !path.equals(REGISTER_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String client = request.getRemoteAddr();
+        if (path(request).equals(REGISTER_PATH)) {
+            if (allowed("register-ip", client, properties.getRegisterPerIp(), request, response)) {
+                filterChain.doFilter(request, response);
+            }
+            return;
+        }
+        if (!allowed("login-ip", client, properties.getLoginPerIp(), request, response)) {
+            return;
+        }
+        BufferedBodyRequest buffered = new BufferedBodyRequest(request);
+        if (!buffered.isComplete()) {
+            writeError(HttpStatus.PAYLOAD_TOO_LARGE, "Login request body exceeds " + MAX_INSPECTED_BODY + " bytes",
+                    request, response);
+            return;
+        }
+        String login = buffered.login(objectMapper);
+        if (login != null && !allowed("login", login, properties.getLoginPerAccount(), request, response)) {
+            return;
+        }
+        filterChain.doFilter(buffered, response);
+    }
+
+    private boolean allowed(String limitName, String subject, RateLimitProperties.Limit limit,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Duration retryAfter = store.tryConsume(limitName + ":" + digest(subject), limit);
+        if (retryAfter.isZero()) {
+            return true;
+        }
+        meterRegistry.counter("auth.rate.limited", "limit", limitName).increment();
+        log.debug("Rate limit {} exceeded by {}", limitName, subject);
+        long retryAfterSeconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        writeError(HttpStatus.TOO_MANY_REQUESTS, "Too many attempts, retry in " + retryAfterSeconds + " s", request, response);
+        return false;
+    }
+
+    private void writeError(HttpStatus status, String message, HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        Map<String, Object> body = Map.of(
+                "status", status.value(),
+                "error", status.getReasonPhrase(),
+                "message", message,
+                "path", request.getRequestURI(),
+                "timestamp", OffsetDateTime.now().toString()
+        );
+        response.getWriter().write(objectMapper.writeValueAsString(body));
+    }
+
+    // Empreinte SHA-256 du sujet : l'identifiant de connexion est choisi par le client (jusqu'à MAX_INSPECTED_BODY
+    // octets), la clé du seau garde ainsi une taille fixe qui tient dans rate_limit_buckets.bucket_key.
+    private static String digest(String subject) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(subject.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    // Requête dont le corps a été lu pour y trouver l'identifiant, puis rejoué tel quel au contrôleur.
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+        // Octets déjà lus (au plus MAX_INSPECTED_BODY + 1).
+        private final byte[] head;
+        // Indique si le corps entier tient dans head.
+        private final boolean complete;
+
+        BufferedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            byte[] read = request.getInputStream().readNBytes(MAX_INSPECTED_BODY + 1);
+            this.complete = read.length <= MAX_INSPECTED_BODY;
+            this.head = read;
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+
+        // Identifiant de connexion normalisé comme le fait AuthService, ou null s'il est introuvable (la validation du
+        // contrôleur répond alors 400 sans hachage). Un nombre est converti en texte par Jackson : il est compté aussi.
+        String login(ObjectMapper objectMapper) {
+            try {
+                JsonNode login = objectMapper.readTree(head).path("login");
+                return login.isValueNode() && !login.asText().isBlank() ? login.asText().toLowerCase(Locale.ROOT) : null;
+            } catch (IOException e) {
+                // Corps invalide : la validation du contrôleur répondra 400.
+                return null;
+            }
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            // Seule une requête au corps complet est transmise au contrôleur.
+            InputStream replay = new ByteArrayInputStream(head);
+            return new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public int read() throws IOException {
+                    int value = replay.read();
+                    finished = value < 0;
+                    return value;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int count = replay.read(buffer, offset, length);
+                    finished = count < 0;
+                    return count;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Asynchronous reads are not supported");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.chatop.api.security.ratelimit;
+
+// Cette classe charge la configuration du limiteur de débit des routes d'authentification.
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// @ConfigurationProperties lit les propriétés commençant par "app.rate-limit".
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Enables the rate limiter on /api/auth/login and /api/auth/register.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Where bucket states are kept: "local" (in-process, per node) or "jdbc" (shared through the database).
+     */
+    private String store = "local";
+
+    /**
+     * Maximum number of buckets kept in memory by the local store; the least recently used are evicted first.
+     */
+    private long maxKeys = 100_000;
+
+    /**
+     * Login attempts allowed per client IP address.
+     */
+    private Limit loginPerIp = new Limit(20, Duration.ofMinutes(1));
+
+    /**
+     * Login attempts allowed per login identifier, whatever the client address.
+     */
+    private Limit loginPerAccount = new Limit(5, Duration.ofMinutes(1));
+
+    /**
+     * Registrations allowed per client IP address.
+     */
+    private Limit registerPerIp = new Limit(10, Duration.ofHours(1));
+
+    // Plus longue période configurée : au-delà, un seau inutilisé est revenu plein et peut être oublié sans perte.
+    public Duration longestPeriod() {
+        Duration longest = loginPerIp.getPeriod();
+        for (Limit limit : new Limit[]{loginPerAccount, registerPerIp}) {
+            if (limit.getPeriod().compareTo(longest) > 0) {
+                longest = limit.getPeriod();
+            }
+        }
+        return longest;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public void setStore(String store) {
+        this.store = store;
+    }
+
+    public long getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(long maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public Limit getLoginPerIp() {
+        return loginPerIp;
+    }
+
+    public void setLoginPerIp(Limit loginPerIp) {
+        this.loginPerIp = loginPerIp;
+    }
+
+    public Limit getLoginPerAccount() {
+        return loginPerAccount;
+    }
+
+    public void setLoginPerAccount(Limit loginPerAccount) {
+        this.loginPerAccount = loginPerAccount;
+    }
+
+    public Limit getRegisterPerIp() {
+        return registerPerIp;
+    }
+
+    public void setRegisterPerIp(Limit registerPerIp) {
+        this.registerPerIp = registerPerIp;
+    }
+
+    // Seau à jetons : capacity requêtes d'affilée au plus, un jeton étant regagné toutes les period / capacity.
+    public static class Limit {
+
+        /**
+         * Bucket size: number of requests accepted in a burst.
+         */
+        private int capacity;
+
+        /**
+         * Time needed to refill the whole bucket.
+         */
+        private Duration period;
+
+        public Limit() {
+        }
+
+        public Limit(int capacity, Duration period) {
+            this.capacity = capacity;
+            this.period = period;
+        }
+
+        // Intervalle entre deux jetons, en millisecondes.
+        public long emissionIntervalMillis() {
+            return Math.max(1, period.toMillis() / capacity);
+        }
+
+        // Avance maximale que l'état du seau peut prendre sur l'horloge (seau vide).
+        public long burstMillis() {
+            return emissionIntervalMillis() * capacity;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public Duration getPeriod() {
+            return period;
+        }
+
+        public void setPeriod(Duration period) {
+            this.period = period;
+        }
+    }
+}
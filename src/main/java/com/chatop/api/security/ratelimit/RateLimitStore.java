@@ -0,0 +1,25 @@
+package com.chatop.api.security.ratelimit;
+
+// Point d'extension du limiteur de débit : là où l'état des seaux à jetons est conservé.
+
+import java.time.Duration;
+
+// Chaque seau est représenté par un seul nombre, l'instant théorique d'arrivée de la prochaine requête
+// ("GCRA", formulation du seau à jetons sans minuterie de remplissage) : une requête est acceptée si cet instant
+// n'est pas en avance de plus d'un seau plein sur l'horloge, et l'accepter le repousse d'un intervalle.
+// L'implémentation locale suffit pour un seul nœud ; plusieurs nœuds doivent partager un même store
+// (app.rate-limit.store=jdbc, ou un bean RateLimitStore adossé à Redis par exemple).
+public interface RateLimitStore {
+
+    // Consomme un jeton du seau key. Renvoie Duration.ZERO si la requête est acceptée, sinon le délai au bout
+    // duquel un jeton sera disponible (le seau n'est alors pas modifié).
+    Duration tryConsume(String key, RateLimitProperties.Limit limit);
+
+    // Calcul commun aux implémentations : nouvel état du seau si la requête est acceptée, ou valeur négative
+    // égale à l'opposé du délai d'attente (en millisecondes) si elle est refusée.
+    static long admit(long theoreticalArrival, long now, RateLimitProperties.Limit limit) {
+        long next = Math.max(theoreticalArrival, now) + limit.emissionIntervalMillis();
+        long excess = next - now - limit.burstMillis();
+        return excess > 0 ? -excess : next;
+    }
+}
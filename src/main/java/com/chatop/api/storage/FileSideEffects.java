@@ -0,0 +1,97 @@
+package com.chatop.api.storage;
+
+// Effets de bord sur les fichiers déclenchés par une écriture en base, exécutés une fois la transaction terminée.
+
+import com.chatop.api.config.FileTaskExecutorConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.Executor;
+
+// Les services métier ne manipulent plus le disque dans leurs méthodes @Transactional (hormis l'écriture de l'upload
+// lui-même) : suppressions, variantes et vérifications sont enregistrées ici et ne partent sur l'exécuteur borné
+// qu'après le commit. La transaction reste courte, et un rollback n'entraîne jamais la suppression d'un fichier
+// encore référencé. Hors transaction, les tâches sont soumises immédiatement.
+@Slf4j
+@Component
+public class FileSideEffects {
+
+    // Accès aux fichiers stockés.
+    private final FileStorageService fileStorageService;
+    // Génération des variantes redimensionnées.
+    private final ImageVariantService imageVariantService;
+    // Exécuteur borné des tâches de fichiers.
+    private final Executor executor;
+    // Fichiers dont le contenu sur le disque ne correspond pas à l'empreinte attendue.
+    private final Counter digestMismatches;
+
+    public FileSideEffects(FileStorageService fileStorageService,
+                           ImageVariantService imageVariantService,
+                           @Qualifier(FileTaskExecutorConfig.FILE_TASK_EXECUTOR) Executor executor,
+                           MeterRegistry meterRegistry) {
+        this.fileStorageService = fileStorageService;
+        this.imageVariantService = imageVariantService;
+        this.executor = executor;
+        this.digestMismatches = Counter.builder("file.digest.mismatches")
+                .description("Stored files whose content no longer matches their SHA-256")
+                .register(meterRegistry);
+    }
+
+    // Un fichier vient d'être stocké pour la transaction en cours.
+    // Après commit : génération des variantes et vérification de l'empreinte de l'exemplaire sur le disque
+    // (en stockage adressé par le contenu, un upload dédupliqué réutilise un fichier plus ancien qui n'a pas été relu).
+    // Après rollback : le fichier n'est référencé par aucune ligne et est supprimé, sauf s'il peut être partagé,
+    // auquel cas le ramasse-miettes s'en chargera.
+    public void afterStore(String storedFilename) {
+        runAfterCommit(() -> imageVariantService.generateAsync(storedFilename));
+        runAfterCommit(() -> executor.execute(() -> verify(storedFilename)));
+        if (!fileStorageService.isContentAddressed() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        executor.execute(() -> fileStorageService.delete(storedFilename));
+                    }
+                }
+            });
+        }
+    }
+
+    // Un fichier n'est plus référencé par la ligne modifiée. Il est supprimé après commit, sauf en stockage adressé
+    // par le contenu où d'autres locations peuvent le partager : le ramasse-miettes décide alors sur les références.
+    public void releaseAfterCommit(String storedFilename) {
+        if (storedFilename == null || fileStorageService.isContentAddressed()) {
+            return;
+        }
+        runAfterCommit(() -> executor.execute(() -> fileStorageService.delete(storedFilename)));
+    }
+
+    private void verify(String storedFilename) {
+        try {
+            if (!fileStorageService.verifyDigest(storedFilename)) {
+                digestMismatches.increment();
+                log.error("Stored file {} does not match its SHA-256 digest", storedFilename);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Could not verify digest of {}", storedFilename, ex);
+        }
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
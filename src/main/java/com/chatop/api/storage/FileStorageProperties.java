@@ -5,17 +5,87 @@ package com.chatop.api.storage;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 // @ConfigurationProperties lit les valeurs app.file-storage.* définies dans les fichiers de configuration.
 @Configuration
 @ConfigurationProperties(prefix = "app.file-storage")
 public class FileStorageProperties {
 
-    // Emplacement physique (sur le disque) où les fichiers sont enregistrés.
+    // Backend de stockage des fichiers : "local" (disque, par défaut) ou "s3" (stockage objet compatible S3).
+    private String backend = "local";
+
+    // Emplacement physique (sur le disque) où les fichiers sont enregistrés ; avec un backend distant,
+    // dossier de travail des fichiers temporaires (uploads, variantes).
     private String location;
 
     // URL publique permettant d'accéder aux fichiers via HTTP.
     private String publicUrl;
 
+    // Taille (en octets) à partir de laquelle un téléchargement est délégué au "sendfile" du serveur (copie zéro).
+    private long sendfileThreshold = 48 * 1024;
+
+    // Nombre maximal de fichiers dont les métadonnées (type MIME, taille, date) sont gardées en mémoire.
+    private long metadataCacheSize = 10_000;
+
+    // Durée de vie des métadonnées en cache : borne le temps pendant lequel un fichier supprimé hors de l'application
+    // (ou par une autre instance) reste décrit comme présent.
+    private Duration metadataCacheTtl = Duration.ofMinutes(10);
+
+    // Stockage adressé par le contenu : le fichier est nommé d'après son empreinte SHA-256, si bien que des octets
+    // identiques ne sont stockés qu'une fois. Les fichiers ne sont alors plus supprimés immédiatement mais par
+    // le ramasse-miettes, une fois qu'aucune location ne les référence.
+    private boolean contentAddressed = true;
+
+    // Âge minimal d'un fichier avant que le ramasse-miettes puisse le supprimer : protège les fichiers écrits
+    // (ou dédupliqués) par une transaction qui n'est pas encore validée.
+    private Duration gcGracePeriod = Duration.ofHours(1);
+
+    // Nombre de fichiers dont les références sont vérifiées en une seule requête lors d'un passage du ramasse-miettes.
+    private int gcBatchSize = 500;
+
+    // Pause entre deux lots du ramasse-miettes, pour limiter sa charge sur le disque et la base.
+    private Duration gcBatchPause = Duration.ofMillis(100);
+
+    // Durée pendant laquelle un fichier orphelin reste en quarantaine (et peut être restauré) avant sa suppression.
+    private Duration gcQuarantinePeriod = Duration.ofDays(1);
+
+    // Nombre de niveaux de sous-dossiers sous lesquels les fichiers sont répartis (0 : tous les fichiers à plat).
+    private int shardLevels = 2;
+
+    // Nombre de caractères du nom de fichier utilisés pour chaque niveau (2 caractères hexadécimaux : 256 dossiers).
+    private int shardWidth = 2;
+
+    // Lance au démarrage, en arrière-plan, la migration des fichiers encore à plat vers la disposition répartie.
+    private boolean migrateLayoutOnStartup;
+
+    // Nombre de threads dédiés aux tâches de fichiers exécutées après validation (variantes, suppressions, vérifications).
+    private int taskThreads = 2;
+
+    // Nombre maximal de tâches de fichiers en attente ; au-delà, le thread appelant exécute lui-même la tâche.
+    private int taskQueueCapacity = 1000;
+
+    // Nombre de threads dédiés au redimensionnement des photos (génération des variantes).
+    private int variantThreads = 2;
+
+    // Nombre maximal de générations de variantes en attente ; au-delà, la demande est abandonnée et l'original servi.
+    private int variantQueueCapacity = 100;
+
+    // Nombre maximal de pixels (largeur x hauteur) d'une image décodée pour générer ses variantes. Le décodage alloue
+    // 4 octets par pixel : une image de 5 Mo peut annoncer 30000 x 30000 pixels et réclamer plusieurs Go de mémoire.
+    private long variantMaxPixels = 25_000_000;
+
+    // Paramètres du backend S3.
+    private S3 s3 = new S3();
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public void setBackend(String backend) {
+        this.backend = backend;
+    }
+
     public String getLocation() {
         return location;
     }
@@ -31,4 +101,222 @@ public class FileStorageProperties {
     public void setPublicUrl(String publicUrl) {
         this.publicUrl = publicUrl;
     }
+
+    public long getSendfileThreshold() {
+        return sendfileThreshold;
+    }
+
+    public void setSendfileThreshold(long sendfileThreshold) {
+        this.sendfileThreshold = sendfileThreshold;
+    }
+
+    public long getMetadataCacheSize() {
+        return metadataCacheSize;
+    }
+
+    public void setMetadataCacheSize(long metadataCacheSize) {
+        this.metadataCacheSize = metadataCacheSize;
+    }
+
+    public Duration getMetadataCacheTtl() {
+        return metadataCacheTtl;
+    }
+
+    public void setMetadataCacheTtl(Duration metadataCacheTtl) {
+        this.metadataCacheTtl = metadataCacheTtl;
+    }
+
+    public boolean isContentAddressed() {
+        return contentAddressed;
+    }
+
+    public void setContentAddressed(boolean contentAddressed) {
+        this.contentAddressed = contentAddressed;
+    }
+
+    public Duration getGcGracePeriod() {
+        return gcGracePeriod;
+    }
+
+    public void setGcGracePeriod(Duration gcGracePeriod) {
+        this.gcGracePeriod = gcGracePeriod;
+    }
+
+    public int getGcBatchSize() {
+        return gcBatchSize;
+    }
+
+    public void setGcBatchSize(int gcBatchSize) {
+        this.gcBatchSize = gcBatchSize;
+    }
+
+    public Duration getGcBatchPause() {
+        return gcBatchPause;
+    }
+
+    public void setGcBatchPause(Duration gcBatchPause) {
+        this.gcBatchPause = gcBatchPause;
+    }
+
+    public Duration getGcQuarantinePeriod() {
+        return gcQuarantinePeriod;
+    }
+
+    public void setGcQuarantinePeriod(Duration gcQuarantinePeriod) {
+        this.gcQuarantinePeriod = gcQuarantinePeriod;
+    }
+
+    public int getShardLevels() {
+        return shardLevels;
+    }
+
+    public void setShardLevels(int shardLevels) {
+        this.shardLevels = shardLevels;
+    }
+
+    public int getShardWidth() {
+        return shardWidth;
+    }
+
+    public void setShardWidth(int shardWidth) {
+        this.shardWidth = shardWidth;
+    }
+
+    public boolean isMigrateLayoutOnStartup() {
+        return migrateLayoutOnStartup;
+    }
+
+    public void setMigrateLayoutOnStartup(boolean migrateLayoutOnStartup) {
+        this.migrateLayoutOnStartup = migrateLayoutOnStartup;
+    }
+
+    public int getTaskThreads() {
+        return taskThreads;
+    }
+
+    public void setTaskThreads(int taskThreads) {
+        this.taskThreads = taskThreads;
+    }
+
+    public int getTaskQueueCapacity() {
+        return taskQueueCapacity;
+    }
+
+    public void setTaskQueueCapacity(int taskQueueCapacity) {
+        this.taskQueueCapacity = taskQueueCapacity;
+    }
+
+    public int getVariantThreads() {
+        return variantThreads;
+    }
+
+    public void setVariantThreads(int variantThreads) {
+        this.variantThreads = variantThreads;
+    }
+
+    public int getVariantQueueCapacity() {
+        return variantQueueCapacity;
+    }
+
+    public void setVariantQueueCapacity(int variantQueueCapacity) {
+        this.variantQueueCapacity = variantQueueCapacity;
+    }
+
+    public long getVariantMaxPixels() {
+        return variantMaxPixels;
+    }
+
+    public void setVariantMaxPixels(long variantMaxPixels) {
+        this.variantMaxPixels = variantMaxPixels;
+    }
+
+    public S3 getS3() {
+        return s3;
+    }
+
+    public void setS3(S3 s3) {
+        this.s3 = s3;
+    }
+
+    // Configuration app.file-storage.s3.* d'un stockage objet compatible S3.
+    public static class S3 {
+
+        // URL du service (MinIO, Ceph, fournisseur tiers) ; vide pour AWS S3, déduit de la région.
+        private String endpoint;
+
+        // Région du bucket (quelconque mais obligatoire pour la signature hors AWS).
+        private String region = "us-east-1";
+
+        // Bucket dans lequel les fichiers sont rangés.
+        private String bucket;
+
+        // Clé d'accès ; si elle est vide, la chaîne d'identifiants standard d'AWS est utilisée
+        // (variables d'environnement, profil, rôle de l'instance).
+        private String accessKey;
+
+        // Clé secrète associée à la clé d'accès.
+        private String secretKey;
+
+        // Adressage par chemin (http://hôte/bucket/clé) plutôt que par sous-domaine, requis par MinIO.
+        private boolean pathStyleAccess = true;
+
+        // Durée de validité des URL de téléchargement présignées.
+        private Duration presignTtl = Duration.ofHours(1);
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public void setEndpoint(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public void setRegion(String region) {
+            this.region = region;
+        }
+
+        public String getBucket() {
+            return bucket;
+        }
+
+        public void setBucket(String bucket) {
+            this.bucket = bucket;
+        }
+
+        public String getAccessKey() {
+            return accessKey;
+        }
+
+        public void setAccessKey(String accessKey) {
+            this.accessKey = accessKey;
+        }
+
+        public String getSecretKey() {
+            return secretKey;
+        }
+
+        public void setSecretKey(String secretKey) {
+            this.secretKey = secretKey;
+        }
+
+        public boolean isPathStyleAccess() {
+            return pathStyleAccess;
+        }
+
+        public void setPathStyleAccess(boolean pathStyleAccess) {
+            this.pathStyleAccess = pathStyleAccess;
+        }
+
+        public Duration getPresignTtl() {
+            return presignTtl;
+        }
+
+        public void setPresignTtl(Duration presignTtl) {
+            this.presignTtl = presignTtl;
+        }
+    }
 }
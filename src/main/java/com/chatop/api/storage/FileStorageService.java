@@ -1,38 +1,75 @@
 package com.chatop.api.storage;
 
-// Service responsable du stockage physique des fichiers (upload, suppression, lecture).
+// Service responsable du stockage des fichiers (upload, suppression, lecture), quel que soit le backend utilisé.
 
+import com.chatop.api.storage.StorageBackend.StoredObject;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.FilenameUtils;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 // @Slf4j fournit un logger pour tracer les opérations de stockage.
 // @Service expose cette classe comme bean Spring injectible.
+// Les octets sont confiés au StorageBackend configuré (disque local ou stockage objet) ; ce service garde
+// la validation des uploads, le nommage, le cache des métadonnées et la quarantaine, communs à tous les backends.
 @Slf4j
 @Service
 public class FileStorageService {
 
-    // Répertoire racine où les fichiers sont conservés.
+    // Taille du tampon de copie lors de l'écriture d'un upload.
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // Sous-dossier contenant les variantes redimensionnées (un dossier par variante, même nom que l'original).
+    // Il n'est pas parcouru par scanStored : seules les photos d'origine sont soumises au ramasse-miettes.
+    private static final String VARIANTS_DIRECTORY = "variants";
+
+    // Dossier caché où le ramasse-miettes met de côté les fichiers orphelins avant leur suppression définitive.
+    private static final String QUARANTINE_DIRECTORY = ".quarantine";
+
+    // Répertoire local des fichiers temporaires ; avec le backend local, c'est aussi la racine du stockage
+    // (même système de fichiers, pour que le renommage final soit atomique).
     private final Path rootLocation;
+    // Backend qui conserve effectivement les fichiers.
+    private final StorageBackend backend;
     // Accès aux paramètres de configuration (chemin, URL publique).
     private final FileStorageProperties properties;
+    // Métadonnées (type MIME, taille, date) des fichiers connus : un téléchargement n'a ainsi besoin
+    // ni de détecter le type du fichier ni de relire ses attributs sur le disque.
+    private final Cache<String, StoredFile> metadata;
 
-    public FileStorageService(FileStorageProperties properties) {
+    public FileStorageService(FileStorageProperties properties, StorageBackend backend) {
         this.properties = properties;
+        this.backend = backend;
+        this.metadata = Caffeine.newBuilder()
+                .maximumSize(properties.getMetadataCacheSize())
+                .expireAfterWrite(properties.getMetadataCacheTtl())
+                .build();
         // On normalise le chemin pour éviter les ambiguïtés et garantir la sécurité.
         this.rootLocation = Paths.get(properties.getLocation()).toAbsolutePath().normalize();
         try {
@@ -44,33 +81,104 @@ public class FileStorageService {
     }
 
     // Enregistre un fichier reçu depuis une requête HTTP et renvoie son nom stocké.
+    // Le contenu est lu une seule fois : en un même passage on vérifie la signature de l'image, on calcule
+    // son empreinte SHA-256 et on l'écrit dans un fichier temporaire, confié ensuite au backend qui le publie
+    // de façon atomique. Un fichier partiellement écrit n'est donc jamais visible sous son nom définitif.
     public String store(MultipartFile file) {
         if (file.isEmpty()) {
             throw new IllegalArgumentException("Uploaded file is empty");
         }
 
-        // On récupère le nom d'origine pour conserver l'extension et logguer des informations utiles.
+        // Le nom d'origine ne sert plus qu'aux logs : l'extension stockée est déduite du contenu réel.
         String originalFilename = Objects.requireNonNullElse(file.getOriginalFilename(), "file");
-        String extension = FilenameUtils.getExtension(originalFilename);
-        // Nettoyage de l'extension pour empêcher l'injection de caractères spéciaux dans le nom du fichier.
-        String sanitizedExtension = extension != null && !extension.isBlank() ? "." + extension.replaceAll("[^a-zA-Z0-9]", "") : "";
-        // Utilisation d'un UUID pour éviter toute collision de noms de fichiers.
-        String storedFilename = UUID.randomUUID() + sanitizedExtension;
-        Path destinationFile = this.rootLocation.resolve(storedFilename).normalize();
+        Path tempFile = null;
+        try {
+            tempFile = newTemporaryFile(".upload-");
+            StreamedUpload upload = copyAndInspect(file, tempFile);
 
-        // Protection contre les attaques de traversal : on vérifie que le fichier reste dans le répertoire autorisé.
-        if (!destinationFile.getParent().equals(this.rootLocation)) {
-            throw new IllegalArgumentException("Cannot store file outside of the designated directory");
-        }
+            // En mode adressé par le contenu, le nom est l'empreinte : deux uploads identiques désignent le même fichier.
+            // Sinon, un UUID évite toute collision de noms.
+            String baseName = properties.isContentAddressed() ? upload.sha256() : UUID.randomUUID().toString();
+            String storedFilename = baseName + "." + upload.format().getExtension();
+            String contentType = upload.format().getContentType();
+            StoredObject stored = properties.isContentAddressed() && backend.stat(storedFilename).isPresent()
+                    ? reuse(storedFilename)
+                    : null;
+            if (stored != null) {
+                log.info("Deduplicated file {} ({} bytes) onto existing {}", originalFilename, upload.size(), storedFilename);
+            } else {
+                stored = backend.put(storedFilename, tempFile, contentType);
+            }
 
-        try {
-            Files.copy(file.getInputStream(), destinationFile, StandardCopyOption.REPLACE_EXISTING);
+            // Les métadonnées sont enregistrées dès l'écriture : le premier téléchargement est déjà servi depuis le cache.
+            metadata.put(storedFilename, new StoredFile(storedFilename, stored.localPath(), contentType,
+                    upload.size(), stored.lastModified(), upload.sha256()));
+            log.info("Stored file {} ({} bytes, sha256 {}) as {}", originalFilename, upload.size(), upload.sha256(), storedFilename);
+            return storedFilename;
         } catch (IOException ex) {
             throw new IllegalStateException("Failed to store file", ex);
+        } finally {
+            deleteQuietly(tempFile);
         }
+    }
 
-        log.info("Stored file {} ({} bytes) as {}", originalFilename, file.getSize(), storedFilename);
-        return storedFilename;
+    // Contenu déjà présent : la date de l'exemplaire existant est rafraîchie pour que le ramasse-miettes ne le mette
+    // pas en quarantaine avant que la location qui le référence soit enregistrée, puis relue. Le ramasse-miettes a pu
+    // le déplacer entre son propre contrôle de date et ce rafraîchissement : s'il a disparu (ou si le rafraîchissement
+    // échoue), on renvoie null et l'appelant republie le fichier temporaire, sans reprendre de métadonnées périmées.
+    // Un déplacement encore plus tardif est rattrapé au passage suivant du ramasse-miettes, qui restaure les fichiers
+    // en quarantaine redevenus référencés.
+    private StoredObject reuse(String storedFilename) {
+        try {
+            backend.touch(storedFilename);
+            return backend.stat(storedFilename).orElse(null);
+        } catch (IOException e) {
+            log.debug("Could not reuse existing {}, publishing the upload again", storedFilename, e);
+            return null;
+        }
+    }
+
+    // Copie le flux vers le fichier temporaire en mettant à jour l'empreinte au fil de l'eau.
+    // Les premiers octets sont contrôlés avant toute écriture : un contenu qui n'est pas une image est refusé d'emblée.
+    private StreamedUpload copyAndInspect(MultipartFile file, Path target) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream in = file.getInputStream();
+             OutputStream out = Files.newOutputStream(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int headerLength = in.readNBytes(buffer, 0, ImageFormat.SIGNATURE_LENGTH);
+            ImageFormat format = ImageFormat.detect(buffer, headerLength)
+                    .orElseThrow(() -> new IllegalArgumentException("Unsupported image format"));
+            digest.update(buffer, 0, headerLength);
+            out.write(buffer, 0, headerLength);
+            long size = headerLength;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+                size += read;
+            }
+            return new StreamedUpload(format, size, HexFormat.of().formatHex(digest.digest()));
+        }
+    }
+
+    // Supprime le fichier temporaire s'il existe encore (upload refusé ou en échec).
+    private void deleteQuietly(Path tempFile) {
+        if (tempFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary upload {}", tempFile, e);
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
     // Supprime un fichier en ignorant silencieusement les noms vides.
@@ -78,35 +186,275 @@ public class FileStorageService {
         if (!StringUtils.hasText(storedFilename)) {
             return;
         }
-        Path filePath = this.rootLocation.resolve(storedFilename).normalize();
+        validateName(storedFilename);
+        metadata.invalidate(storedFilename);
         try {
-            Files.deleteIfExists(filePath);
+            backend.delete(storedFilename);
         } catch (IOException e) {
             log.warn("Failed to delete file {}", storedFilename, e);
         }
+        // Les variantes n'ont pas de sens sans leur original.
+        deleteVariants(storedFilename);
     }
 
-    // Charge un fichier sous forme de Resource pour qu'il puisse être renvoyé dans une réponse HTTP.
-    public Resource loadAsResource(String storedFilename) {
+    private void deleteVariants(String storedFilename) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            String key = variantKey(storedFilename, variant);
+            metadata.invalidate(key);
+            try {
+                backend.delete(key);
+            } catch (IOException e) {
+                log.warn("Failed to delete {} variant of {}", variant.getKey(), storedFilename, e);
+            }
+        }
+    }
+
+    // Indique si les fichiers sont partagés entre locations (stockage adressé par le contenu) : dans ce cas,
+    // un fichier qui n'est plus référencé est laissé au ramasse-miettes plutôt que supprimé immédiatement.
+    public boolean isContentAddressed() {
+        return properties.isContentAddressed();
+    }
+
+    // Parcourt en flux les fichiers stockés dont le nom commence par prefix et dont la dernière écriture est
+    // antérieure à cutoff, et les transmet par lots de batchSize : la liste n'est jamais chargée entièrement
+    // en mémoire. Les variantes et la quarantaine sont ignorées.
+    public void scanStored(String prefix, Instant cutoff, int batchSize, Consumer<List<String>> batchConsumer) {
+        list("", prefix, cutoff, batchSize, batchConsumer);
+    }
+
+    // Même parcours sur la quarantaine : fichiers mis de côté avant cutoff.
+    public void scanQuarantined(Instant cutoff, int batchSize, Consumer<List<String>> batchConsumer) {
+        list(QUARANTINE_DIRECTORY, "", cutoff, batchSize, batchConsumer);
+    }
+
+    private void list(String directory, String prefix, Instant cutoff, int batchSize, Consumer<List<String>> batchConsumer) {
+        try {
+            backend.list(directory, prefix, cutoff, batchSize, batchConsumer);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not list stored files in '" + directory + "'", e);
+        }
+    }
+
+    // Met en quarantaine un fichier qui n'est plus référencé, sauf s'il a été réécrit ou dédupliqué depuis cutoff
+    // (la date est relue juste avant le déplacement). Ses variantes, recalculables, sont supprimées.
+    // Renvoie la taille du fichier déplacé, ou -1 s'il a été épargné.
+    public long quarantine(String storedFilename, Instant cutoff) {
+        try {
+            Optional<StoredObject> stored = backend.stat(storedFilename);
+            if (stored.isEmpty() || !stored.get().lastModified().isBefore(cutoff)) {
+                return -1;
+            }
+            // La date de modification de l'exemplaire en quarantaine marque son entrée en quarantaine.
+            backend.move(storedFilename, quarantineKey(storedFilename));
+            metadata.invalidate(storedFilename);
+            deleteVariants(storedFilename);
+            return stored.get().size();
+        } catch (IOException e) {
+            log.warn("Failed to quarantine file {}", storedFilename, e);
+            return -1;
+        }
+    }
+
+    // Remet en service un fichier de la quarantaine redevenu référencé. Si le même contenu a entre-temps été
+    // stocké à nouveau, l'exemplaire en quarantaine est simplement supprimé.
+    public void restore(String storedFilename) {
         try {
-            Path file = rootLocation.resolve(storedFilename).normalize();
-            Resource resource = new UrlResource(file.toUri());
-            if (resource.exists() && resource.isReadable()) {
-                return resource;
+            if (backend.stat(storedFilename).isPresent()) {
+                backend.delete(quarantineKey(storedFilename));
+            } else {
+                backend.move(quarantineKey(storedFilename), storedFilename);
+                metadata.invalidate(storedFilename);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to restore quarantined file {}", storedFilename, e);
+        }
+    }
+
+    // Supprime définitivement un fichier mis en quarantaine avant cutoff et renvoie le nombre d'octets libérés
+    // (-1 s'il est encore en quarantaine ou en cas d'échec).
+    public long purgeQuarantined(String storedFilename, Instant cutoff) {
+        String key = quarantineKey(storedFilename);
+        try {
+            Optional<StoredObject> quarantined = backend.stat(key);
+            if (quarantined.isEmpty() || !quarantined.get().lastModified().isBefore(cutoff)) {
+                return -1;
+            }
+            backend.delete(key);
+            return quarantined.get().size();
+        } catch (IOException e) {
+            log.warn("Failed to purge quarantined file {}", storedFilename, e);
+            return -1;
+        }
+    }
+
+    // Crée un fichier temporaire caché dans le répertoire local de travail (à la racine du stockage local,
+    // sur le même système de fichiers que les emplacements définitifs, pour que le renommage final soit atomique).
+    public Path newTemporaryFile(String prefix) throws IOException {
+        return Files.createTempFile(rootLocation, prefix, ".tmp");
+    }
+
+    // Supprime les fichiers temporaires d'upload ou de variante abandonnés avant cutoff (arrêt brutal pendant
+    // une écriture) et renvoie le nombre d'octets libérés.
+    public long purgeTemporaryFiles(Instant cutoff) {
+        long reclaimed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(rootLocation, ".*.tmp")) {
+            for (Path file : files) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.lastModifiedTime().toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                    reclaimed += attributes.size();
+                }
             }
+        } catch (IOException e) {
+            log.warn("Failed to purge temporary files in {}", rootLocation, e);
+        }
+        return reclaimed;
+    }
+
+    // Migration en ligne de l'ancienne disposition à plat vers la disposition répartie (originaux, variantes et
+    // quarantaine). Les URL ne contiennent que le nom du fichier : elles continuent de fonctionner sans changement.
+    // Seul le backend local est concerné : un stockage objet n'a pas de répertoires à répartir.
+    // Renvoie le nombre de fichiers déplacés.
+    public int migrateToShardedLayout() {
+        if (!(backend instanceof LocalStorageBackend local)) {
+            return 0;
+        }
+        List<String> directories = new ArrayList<>(List.of("", QUARANTINE_DIRECTORY));
+        for (ImageVariant variant : ImageVariant.values()) {
+            directories.add(variantsDirectory(variant));
+        }
+        // Les clés du cache sont celles du backend : l'entrée du fichier déplacé est invalidée avant que l'ancien
+        // nom ne disparaisse.
+        return local.migrateToShardedLayout(directories, metadata::invalidate);
+    }
+
+    // Relit le fichier et compare son empreinte SHA-256 à celle attendue : celle calculée à l'upload, ou à défaut
+    // le nom du fichier en stockage adressé par le contenu. Renvoie true si aucune empreinte n'est connue.
+    public boolean verifyDigest(String storedFilename) {
+        StoredFile file = describe(storedFilename);
+        String expected = file.sha256();
+        if (expected == null && properties.isContentAddressed()) {
+            expected = storedFilename.substring(0, storedFilename.lastIndexOf('.'));
+        }
+        if (expected == null) {
+            return true;
+        }
+        MessageDigest digest = newSha256();
+        try (InputStream in = open(storedFilename)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read file " + storedFilename, e);
+        }
+        return expected.equals(HexFormat.of().formatHex(digest.digest()));
+    }
+
+    // Ouvre le contenu d'un fichier stocké, quel que soit le backend.
+    public InputStream open(String storedFilename) throws IOException {
+        validateName(storedFilename);
+        return backend.open(storedFilename);
+    }
+
+    // Décrit un fichier stocké (type MIME, taille, date de modification) sans l'ouvrir.
+    // Les métadonnées viennent du cache ; en cas d'absence (redémarrage, éviction), une seule lecture des attributs
+    // (ou une requête HEAD sur un stockage objet) suffit à les reconstituer.
+    public StoredFile describe(String storedFilename) {
+        validateName(storedFilename);
+        // Le backend n'est interrogé qu'en l'absence du cache : un téléchargement servi depuis le cache ne touche pas au disque.
+        return metadata.get(storedFilename, name -> readMetadata(name, name)
+                .orElseThrow(() -> new IllegalArgumentException("File not found: " + name)));
+    }
+
+    // Le fichier décrit par le cache a disparu (supprimé hors de l'application ou par une autre instance) : ses
+    // métadonnées et celles de ses variantes sont oubliées, la requête suivante interroge de nouveau le backend.
+    public void forget(String storedFilename) {
+        validateName(storedFilename);
+        metadata.invalidate(storedFilename);
+        for (ImageVariant variant : ImageVariant.values()) {
+            metadata.invalidate(variantKey(storedFilename, variant));
+        }
+    }
+
+    // Décrit une variante redimensionnée si elle a déjà été générée. L'absence n'est pas mise en cache :
+    // la variante peut apparaître à tout moment une fois le redimensionnement terminé.
+    public Optional<StoredFile> describeVariant(String storedFilename, ImageVariant variant) {
+        validateName(storedFilename);
+        String key = variantKey(storedFilename, variant);
+        StoredFile cached = metadata.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<StoredFile> described = readMetadata(storedFilename, key);
+        described.ifPresent(file -> metadata.put(key, file));
+        return described;
+    }
+
+    // Publie une variante redimensionnée écrite dans un fichier temporaire (obtenu par newTemporaryFile).
+    public void storeVariant(String storedFilename, ImageVariant variant, Path tempFile, String contentType) throws IOException {
+        validateName(storedFilename);
+        String key = variantKey(storedFilename, variant);
+        backend.put(key, tempFile, contentType);
+        metadata.invalidate(key);
+    }
+
+    // URL de téléchargement direct d'un fichier (URL présignée d'un stockage objet), vide pour le backend local.
+    public Optional<String> directDownloadUrl(String storedFilename) {
+        validateName(storedFilename);
+        return backend.directDownloadUrl(storedFilename);
+    }
+
+    // Même chose pour une variante redimensionnée.
+    public Optional<String> directDownloadUrl(String storedFilename, ImageVariant variant) {
+        validateName(storedFilename);
+        return backend.directDownloadUrl(variantKey(storedFilename, variant));
+    }
+
+    // Clé d'une variante auprès du backend, qui sert aussi de clé dans le cache des métadonnées.
+    private static String variantKey(String storedFilename, ImageVariant variant) {
+        return variantsDirectory(variant) + "/" + storedFilename;
+    }
+
+    private static String variantsDirectory(ImageVariant variant) {
+        return VARIANTS_DIRECTORY + "/" + variant.getKey();
+    }
+
+    private static String quarantineKey(String storedFilename) {
+        return QUARANTINE_DIRECTORY + "/" + storedFilename;
+    }
+
+    // Refuse tout nom qui ne désigne pas directement un fichier stocké : chemin ("../", "/"), fichier caché
+    // (temporaires, quarantaine).
+    private static void validateName(String storedFilename) {
+        if (!StringUtils.hasText(storedFilename) || storedFilename.startsWith(".")
+                || storedFilename.contains("/") || storedFilename.contains("\\")) {
             throw new IllegalArgumentException("File not found: " + storedFilename);
-        } catch (MalformedURLException e) {
-            throw new IllegalArgumentException("Could not read file: " + storedFilename, e);
         }
     }
 
-    // Détermine le type MIME du fichier pour définir l'entête Content-Type de la réponse HTTP.
-    public String getContentType(Resource resource) {
+    // Construit la Resource d'un fichier déjà décrit ; le fichier n'est ouvert qu'au moment d'écrire la réponse.
+    public Resource loadAsResource(StoredFile storedFile) {
+        return new FileSystemResource(storedFile.path());
+    }
+
+    // Charge un fichier sous forme de Resource pour qu'il puisse être renvoyé dans une réponse HTTP.
+    public Resource loadAsResource(String storedFilename) {
+        return loadAsResource(describe(storedFilename));
+    }
+
+    // Lit les attributs auprès du backend. Le type MIME est déduit de l'extension (choisie par nous lors du stockage)
+    // via la table de Spring, sans sonder le contenu du fichier.
+    private Optional<StoredFile> readMetadata(String storedFilename, String key) {
         try {
-            String detected = Files.probeContentType(Path.of(resource.getURI()));
-            return detected != null ? detected : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            String contentType = MediaTypeFactory.getMediaType(storedFilename)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                    .toString();
+            // L'empreinte n'est connue qu'au moment de l'upload : on ne relit pas le contenu pour la recalculer.
+            return backend.stat(key).map(stored -> new StoredFile(storedFilename, stored.localPath(), contentType,
+                    stored.size(), stored.lastModified(), null));
         } catch (IOException e) {
-            return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            throw new IllegalStateException("Could not read metadata of " + key, e);
         }
     }
 
@@ -118,6 +466,27 @@ public class FileStorageService {
         if (StringUtils.hasText(properties.getPublicUrl())) {
             return properties.getPublicUrl().replaceAll("/$", "") + "/" + storedFilename;
         }
-        return "/files/" + storedFilename;
+        // Stockage objet : URL présignée, le navigateur télécharge sans passer par l'application.
+        return backend.directDownloadUrl(storedFilename).orElse("/files/" + storedFilename);
+    }
+
+    // Construit l'URL publique d'une variante redimensionnée. Elle passe toujours par FileController (ou par l'URL
+    // publique placée devant lui), qui sert l'original tant que la variante n'est pas prête. Un format que le JDK
+    // ne sait pas redimensionner (WebP) n'aura jamais de variante : l'URL de l'original est alors renvoyée.
+    public String buildVariantUrl(String storedFilename, ImageVariant variant) {
+        if (!StringUtils.hasText(storedFilename)) {
+            return null;
+        }
+        if (!ImageFormat.isResizable(storedFilename)) {
+            return buildPublicUrl(storedFilename);
+        }
+        String base = StringUtils.hasText(properties.getPublicUrl())
+                ? properties.getPublicUrl().replaceAll("/$", "") + "/" + storedFilename
+                : "/files/" + storedFilename;
+        return base + "?variant=" + variant.getKey();
+    }
+
+    // Résultat de la copie d'un upload : format reconnu, taille écrite et empreinte du contenu.
+    private record StreamedUpload(ImageFormat format, long size, String sha256) {
     }
 }
@@ -0,0 +1,93 @@
+package com.chatop.api.storage;
+
+// Formats d'image acceptés à l'upload, reconnus par leur signature binaire ("magic bytes").
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+// Le format est déduit des premiers octets du fichier et non du nom ou du Content-Type fournis par le client :
+// un fichier HTML renommé en .jpg est ainsi refusé, et l'extension stockée reflète toujours le contenu réel.
+public enum ImageFormat {
+
+    JPEG("jpg", "image/jpeg", "jpeg"),
+    PNG("png", "image/png", "png"),
+    GIF("gif", "image/gif", "gif"),
+    // Le JDK ne sait ni lire ni écrire le WebP : ces images sont servies sans variantes redimensionnées.
+    WEBP("webp", "image/webp", null);
+
+    // Nombre d'octets à lire en tête de fichier pour reconnaître tous les formats ci-dessus.
+    public static final int SIGNATURE_LENGTH = 12;
+
+    private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF87_SIGNATURE = "GIF87a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GIF89_SIGNATURE = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RIFF_SIGNATURE = "RIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WEBP_SIGNATURE = "WEBP".getBytes(StandardCharsets.US_ASCII);
+
+    // Extension utilisée pour le fichier stocké.
+    private final String extension;
+    // Type MIME servi au téléchargement.
+    private final String contentType;
+    // Nom du format pour javax.imageio (null si le JDK ne sait pas le redimensionner).
+    private final String imageIoName;
+
+    ImageFormat(String extension, String contentType, String imageIoName) {
+        this.extension = extension;
+        this.contentType = contentType;
+        this.imageIoName = imageIoName;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getImageIoName() {
+        return imageIoName;
+    }
+
+    // Indique si des variantes redimensionnées peuvent être générées pour ce format.
+    public boolean isResizable() {
+        return imageIoName != null;
+    }
+
+    // Indique si des variantes peuvent être générées pour un fichier stocké, d'après son extension.
+    public static boolean isResizable(String storedFilename) {
+        return fromFilename(storedFilename).map(ImageFormat::isResizable).orElse(false);
+    }
+
+    // Retrouve le format d'un fichier stocké à partir de son extension (choisie par nous lors de l'upload).
+    public static Optional<ImageFormat> fromFilename(String storedFilename) {
+        String extension = storedFilename.substring(storedFilename.lastIndexOf('.') + 1);
+        return Arrays.stream(values())
+                .filter(format -> format.extension.equalsIgnoreCase(extension))
+                .findFirst();
+    }
+
+    // Reconnaît le format à partir des premiers octets lus (length peut être inférieur à SIGNATURE_LENGTH).
+    public static Optional<ImageFormat> detect(byte[] header, int length) {
+        if (startsWith(header, length, 0, JPEG_SIGNATURE)) {
+            return Optional.of(JPEG);
+        }
+        if (startsWith(header, length, 0, PNG_SIGNATURE)) {
+            return Optional.of(PNG);
+        }
+        if (startsWith(header, length, 0, GIF87_SIGNATURE) || startsWith(header, length, 0, GIF89_SIGNATURE)) {
+            return Optional.of(GIF);
+        }
+        if (startsWith(header, length, 0, RIFF_SIGNATURE) && startsWith(header, length, 8, WEBP_SIGNATURE)) {
+            return Optional.of(WEBP);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, byte[] signature) {
+        return length >= offset + signature.length
+                && Arrays.equals(header, offset, offset + signature.length, signature, 0, signature.length);
+    }
+}
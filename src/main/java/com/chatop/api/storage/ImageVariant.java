@@ -0,0 +1,41 @@
+package com.chatop.api.storage;
+
+// Déclinaisons redimensionnées d'une photo stockée, servies via /files/{nom}?variant={clé}.
+
+import java.util.Arrays;
+
+// Les variantes conservent le format (et donc l'extension) de l'original ; seule la largeur est réduite,
+// la hauteur suivant le ratio d'origine. Une image plus petite que la largeur cible n'est jamais agrandie.
+public enum ImageVariant {
+
+    // Vignette utilisée par les cartes du listing.
+    THUMBNAIL("thumb", 320),
+    // Taille intermédiaire pour la page de détail.
+    MEDIUM("medium", 1024);
+
+    // Identifiant public de la variante (paramètre d'URL et nom du sous-dossier sur le disque).
+    private final String key;
+    // Largeur maximale en pixels.
+    private final int maxWidth;
+
+    ImageVariant(String key, int maxWidth) {
+        this.key = key;
+        this.maxWidth = maxWidth;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getMaxWidth() {
+        return maxWidth;
+    }
+
+    // Retrouve une variante à partir de sa clé ; une clé inconnue est une erreur du client (400).
+    public static ImageVariant fromKey(String key) {
+        return Arrays.stream(values())
+                .filter(variant -> variant.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown image variant: " + key));
+    }
+}
@@ -0,0 +1,171 @@
+package com.chatop.api.storage;
+
+// Génère et conserve dans le stockage les variantes redimensionnées (vignette, taille moyenne) des photos stockées.
+
+import com.chatop.api.config.FileTaskExecutorConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+// Le redimensionnement décode l'image entière et peut prendre plusieurs centaines de millisecondes pour une photo
+// de 5 Mo : il est donc exécuté hors du thread de la requête, sur l'exécuteur borné qui lui est dédié.
+// Tant que la variante n'existe pas, FileController sert l'original à sa place.
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    // Accès aux photos d'origine et publication des variantes.
+    private final FileStorageService fileStorageService;
+    // Exécuteur sur lequel tourne le redimensionnement.
+    private final Executor executor;
+    // Nombre maximal de pixels d'une image décodée.
+    private final long maxPixels;
+    // Photos en cours de traitement : évite de lancer deux fois la même génération (upload puis premier affichage).
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    // Photos qui ne peuvent pas être redimensionnées (trop grandes, illisibles) : chaque affichage de la variante
+    // (GET /files, sans authentification) relancerait sinon la lecture de l'original.
+    private final Cache<String, Boolean> skipped = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .build();
+
+    public ImageVariantService(FileStorageService fileStorageService,
+                               FileStorageProperties properties,
+                               @Qualifier(FileTaskExecutorConfig.VARIANT_TASK_EXECUTOR) Executor executor) {
+        this.fileStorageService = fileStorageService;
+        this.maxPixels = properties.getVariantMaxPixels();
+        this.executor = executor;
+    }
+
+    // Planifie la génération des variantes manquantes d'une photo et rend la main immédiatement.
+    // Rien n'est planifié pour un format sans variantes (WebP) ni pour une photo déjà écartée.
+    public void generateAsync(String storedFilename) {
+        if (!ImageFormat.isResizable(storedFilename) || skipped.getIfPresent(storedFilename) != null
+                || !inFlight.add(storedFilename)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(storedFilename);
+                } finally {
+                    inFlight.remove(storedFilename);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // File pleine : l'original reste servi, la génération sera redemandée au prochain affichage.
+            inFlight.remove(storedFilename);
+            log.debug("Image variant queue is full, variants of {} postponed", storedFilename);
+        }
+    }
+
+    // Génère les variantes manquantes. L'original n'est décodé qu'une fois pour toutes les variantes ;
+    // chaque variante est écrite dans un fichier temporaire puis publiée d'un bloc par le backend de stockage,
+    // elle n'est donc jamais servie à moitié écrite.
+    public void generate(String storedFilename) {
+        ImageFormat format = ImageFormat.fromFilename(storedFilename).orElse(null);
+        if (format == null || !format.isResizable()) {
+            return;
+        }
+        try {
+            BufferedImage source = null;
+            for (ImageVariant variant : ImageVariant.values()) {
+                if (fileStorageService.describeVariant(storedFilename, variant).isPresent()) {
+                    continue;
+                }
+                if (source == null) {
+                    source = decode(storedFilename);
+                    if (source == null) {
+                        skipped.put(storedFilename, Boolean.TRUE);
+                        return;
+                    }
+                }
+                write(storedFilename, variant, resize(source, variant.getMaxWidth(), format), format);
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Failed to generate image variants for {}", storedFilename, ex);
+        }
+    }
+
+    // Décode l'original après avoir lu ses dimensions dans l'en-tête : une image qui dépasse maxPixels n'est jamais
+    // décodée. Renvoie null si l'image est trop grande ou qu'aucun lecteur ne la reconnaît.
+    private BufferedImage decode(String storedFilename) throws IOException {
+        try (InputStream in = fileStorageService.open(storedFilename);
+             ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = stream != null ? ImageIO.getImageReaders(stream) : null;
+            if (readers == null || !readers.hasNext()) {
+                log.debug("No image reader could decode {}, variants skipped", storedFilename);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Image {} is {}x{} pixels, above the {} pixels limit: variants skipped",
+                            storedFilename, reader.getWidth(0), reader.getHeight(0), maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void write(String storedFilename, ImageVariant variant, BufferedImage image, ImageFormat format) throws IOException {
+        Path tempFile = fileStorageService.newTemporaryFile(".variant-");
+        try {
+            if (!ImageIO.write(image, format.getImageIoName(), tempFile.toFile())) {
+                throw new IOException("No image writer for " + format);
+            }
+            fileStorageService.storeVariant(storedFilename, variant, tempFile, format.getContentType());
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    // Réduit l'image à maxWidth pixels de large (sans jamais l'agrandir) en divisant la taille par deux à chaque
+    // passe : une interpolation bilinéaire directe sur un fort rapport de réduction produit des images crénelées.
+    static BufferedImage resize(BufferedImage source, int maxWidth, ImageFormat format) {
+        int targetWidth = Math.min(maxWidth, source.getWidth());
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * (double) targetWidth / source.getWidth()));
+        // Le JPEG ne gère pas la transparence : on écrit du RGB, les autres formats gardent le canal alpha.
+        int type = format == ImageFormat.JPEG ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+}
@@ -0,0 +1,262 @@
+package com.chatop.api.storage;
+
+// Backend de stockage sur le disque local, réparti en sous-dossiers (ab/cd/<nom>).
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// Backend par défaut (app.file-storage.backend=local). Les objets sont de vrais fichiers : leur chemin est exposé
+// dans StoredObject pour que FileController puisse servir les plages d'octets et déléguer au sendfile.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.file-storage", name = "backend", havingValue = "local", matchIfMissing = true)
+public class LocalStorageBackend implements StorageBackend {
+
+    // Dossier des variantes : il n'est jamais parcouru avec les originaux.
+    private static final String VARIANTS_DIRECTORY = "variants";
+
+    // Répertoire racine où les fichiers sont conservés.
+    private final Path rootLocation;
+    // Accès aux paramètres de répartition en sous-dossiers.
+    private final FileStorageProperties properties;
+
+    public LocalStorageBackend(FileStorageProperties properties) {
+        this.properties = properties;
+        // On normalise le chemin pour éviter les ambiguïtés et garantir la sécurité.
+        this.rootLocation = Paths.get(properties.getLocation()).toAbsolutePath().normalize();
+        try {
+            // On s'assure que le dossier existe au démarrage.
+            Files.createDirectories(this.rootLocation);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create storage directory", e);
+        }
+    }
+
+    // Le fichier temporaire, créé dans le même système de fichiers, est simplement renommé.
+    // Sous Linux le renommage remplace atomiquement une cible créée entre-temps par un upload concurrent,
+    // ce qui est sans conséquence puisque le contenu est identique.
+    @Override
+    public StoredObject put(String key, Path source, String contentType) throws IOException {
+        Path target = shardedPath(key);
+        Files.createDirectories(target.getParent());
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        return read(target);
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String key) throws IOException {
+        try {
+            Path file = locate(key);
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.isRegularFile()
+                    ? Optional.of(new StoredObject(attributes.size(), attributes.lastModifiedTime().toInstant(), file))
+                    : Optional.empty();
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(locate(key));
+    }
+
+    @Override
+    public void touch(String key) throws IOException {
+        Files.setLastModifiedTime(locate(key), FileTime.from(Instant.now()));
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        Path target = shardedPath(targetKey);
+        Files.createDirectories(target.getParent());
+        Files.move(locate(sourceKey), target, StandardCopyOption.ATOMIC_MOVE);
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+    }
+
+    // Emplacement réparti et, tant que la migration n'est pas terminée, ancien emplacement à plat.
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(shardedPath(key));
+        Files.deleteIfExists(flatPath(key));
+    }
+
+    // Parcourt en flux (DirectoryStream) les sous-dossiers de répartition (ceux de premier niveau filtrés par
+    // le même préfixe) ainsi que les fichiers restés à plat ; les fichiers cachés et les variantes sont ignorés.
+    @Override
+    public void list(String directory, String namePrefix, Instant cutoff, int batchSize,
+                     Consumer<List<String>> batchConsumer) throws IOException {
+        Path start = directory.isEmpty() ? rootLocation : resolveDirectory(directory);
+        if (!Files.isDirectory(start)) {
+            return;
+        }
+        List<String> batch = new ArrayList<>(batchSize);
+        scan(start, namePrefix + "*", properties.getShardLevels(), cutoff, batchSize, batch, batchConsumer);
+        flush(batch, batchConsumer);
+    }
+
+    private static void scan(Path directory, String glob, int levels, Instant cutoff, int batchSize,
+                             List<String> batch, Consumer<List<String>> batchConsumer) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(".") || name.equals(VARIANTS_DIRECTORY)) {
+                    continue;
+                }
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    // Supprimé entre la lecture du répertoire et celle de ses attributs.
+                    continue;
+                }
+                if (attributes.isDirectory() && levels > 0) {
+                    scan(file, "*", levels - 1, cutoff, batchSize, batch, batchConsumer);
+                } else if (attributes.isRegularFile() && attributes.lastModifiedTime().toInstant().isBefore(cutoff)) {
+                    batch.add(name);
+                    if (batch.size() == batchSize) {
+                        flush(batch, batchConsumer);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void flush(List<String> batch, Consumer<List<String>> batchConsumer) {
+        if (!batch.isEmpty()) {
+            batchConsumer.accept(List.copyOf(batch));
+            batch.clear();
+        }
+    }
+
+    // Les fichiers locaux sont servis par FileController (ou par le serveur derrière l'URL publique).
+    @Override
+    public Optional<String> directDownloadUrl(String key) {
+        return Optional.empty();
+    }
+
+    // Migration en ligne de l'ancienne disposition à plat vers la disposition répartie : chaque fichier (originaux,
+    // variantes, quarantaine) resté à plat est d'abord lié à son nouvel emplacement, onMoved est prévenu (invalidation
+    // du cache), puis l'ancien nom est supprimé. Le fichier reste donc accessible à tout instant, et une lecture déjà
+    // ouverte n'est pas interrompue. Renvoie le nombre de fichiers déplacés.
+    public int migrateToShardedLayout(List<String> directories, Consumer<String> onMovedKey) {
+        if (properties.getShardLevels() <= 0) {
+            return 0;
+        }
+        int moved = 0;
+        for (String directory : directories) {
+            Path path = directory.isEmpty() ? rootLocation : resolveDirectory(directory);
+            if (Files.isDirectory(path)) {
+                moved += migrateFlatFiles(path, directory.isEmpty() ? "" : directory + "/", onMovedKey);
+            }
+        }
+        return moved;
+    }
+
+    private int migrateFlatFiles(Path directory, String keyPrefix, Consumer<String> onMovedKey) {
+        int moved = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path flat : files) {
+                String name = flat.getFileName().toString();
+                String key = keyPrefix + name;
+                if (name.startsWith(".") || !Files.isRegularFile(flat)) {
+                    continue;
+                }
+                Path sharded = shardedPath(key);
+                if (sharded.equals(flat)) {
+                    continue;
+                }
+                try {
+                    Files.createDirectories(sharded.getParent());
+                    try {
+                        Files.createLink(sharded, flat);
+                    } catch (FileAlreadyExistsException e) {
+                        // Déjà migré (ou réécrit depuis) : seul l'ancien nom reste à retirer.
+                    } catch (UnsupportedOperationException e) {
+                        Files.move(flat, sharded, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                    onMovedKey.accept(key);
+                    Files.deleteIfExists(flat);
+                    moved++;
+                } catch (IOException e) {
+                    log.warn("Failed to migrate {} to the sharded layout", flat, e);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not list directory " + directory, e);
+        }
+        return moved;
+    }
+
+    private static StoredObject read(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return new StoredObject(attributes.size(), attributes.lastModifiedTime().toInstant(), file);
+    }
+
+    // Emplacement d'un fichier selon la disposition répartie : <dossier>/ab/cd/abcdef....jpg pour deux niveaux de deux
+    // caractères. Les noms étant des empreintes ou des UUID, les fichiers se répartissent uniformément et aucun dossier
+    // ne dépasse quelques centaines d'entrées. Un nom trop court pour être réparti reste à plat.
+    private Path shardedPath(String key) {
+        Path file = flatPath(key);
+        String name = file.getFileName().toString();
+        int levels = properties.getShardLevels();
+        int width = properties.getShardWidth();
+        int baseLength = name.lastIndexOf('.');
+        if (levels <= 0 || (baseLength < 0 ? name.length() : baseLength) < levels * width) {
+            return file;
+        }
+        Path parent = file.getParent();
+        for (int level = 0; level < levels; level++) {
+            parent = parent.resolve(name.substring(level * width, (level + 1) * width));
+        }
+        return parent.resolve(name);
+    }
+
+    // Emplacement effectif d'un fichier : réparti, ou encore à plat tant que la migration ne l'a pas déplacé.
+    // Pour un fichier absent, renvoie l'emplacement réparti (celui où il serait écrit).
+    private Path locate(String key) {
+        Path sharded = shardedPath(key);
+        if (Files.exists(sharded)) {
+            return sharded;
+        }
+        Path flat = flatPath(key);
+        return Files.exists(flat) ? flat : sharded;
+    }
+
+    // Emplacement à plat d'une clé "<dossier>/<nom>", en refusant toute tentative de sortir du dossier ("../").
+    private Path flatPath(String key) {
+        int slash = key.lastIndexOf('/');
+        Path directory = slash < 0 ? rootLocation : resolveDirectory(key.substring(0, slash));
+        Path file = directory.resolve(key.substring(slash + 1)).normalize();
+        if (!directory.equals(file.getParent())) {
+            throw new IllegalArgumentException("File not found: " + key);
+        }
+        return file;
+    }
+
+    private Path resolveDirectory(String directory) {
+        Path resolved = rootLocation.resolve(directory).normalize();
+        if (!resolved.startsWith(rootLocation) || resolved.equals(rootLocation)) {
+            throw new IllegalArgumentException("Invalid storage directory: " + directory);
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,216 @@
+package com.chatop.api.storage;
+
+// Backend de stockage objet compatible S3 (AWS S3, MinIO, Ceph RGW, Scaleway, R2...).
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.MetadataDirective;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// Activé par app.file-storage.backend=s3. Les objets sont rangés à plat sous leur clé (un stockage objet n'a pas de
+// limite d'entrées par "dossier") et servis directement au client par URL présignée : les octets ne transitent
+// plus par l'application. Toutes les erreurs du SDK sont converties en IOException, comme pour le disque local.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.file-storage", name = "backend", havingValue = "s3")
+public class S3StorageBackend implements StorageBackend, DisposableBean {
+
+    // Client synchrone (HTTP Apache, pool de connexions partagé par tous les threads).
+    private final S3Client client;
+    // Signature locale des URL de téléchargement (aucun appel réseau).
+    private final S3Presigner presigner;
+    // Paramètres du bucket et durée de validité des URL présignées.
+    private final FileStorageProperties.S3 settings;
+
+    public S3StorageBackend(FileStorageProperties properties) {
+        this.settings = properties.getS3();
+        if (!StringUtils.hasText(settings.getBucket())) {
+            throw new IllegalStateException("app.file-storage.s3.bucket is required for the s3 storage backend");
+        }
+        Region region = Region.of(settings.getRegion());
+        AwsCredentialsProvider credentials = StringUtils.hasText(settings.getAccessKey())
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(settings.getAccessKey(), settings.getSecretKey()))
+                : DefaultCredentialsProvider.create();
+        // Adressage par chemin (http://hôte/bucket/clé), requis par la plupart des stockages auto-hébergés.
+        // Le corps est envoyé d'un bloc avec sa longueur : pas d'encodage "aws-chunked", mal supporté hors AWS.
+        S3Configuration configuration = S3Configuration.builder()
+                .pathStyleAccessEnabled(settings.isPathStyleAccess())
+                .chunkedEncodingEnabled(false)
+                .build();
+        var clientBuilder = S3Client.builder()
+                .region(region)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration);
+        var presignerBuilder = S3Presigner.builder()
+                .region(region)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration);
+        if (StringUtils.hasText(settings.getEndpoint())) {
+            clientBuilder.endpointOverride(URI.create(settings.getEndpoint()));
+            presignerBuilder.endpointOverride(URI.create(settings.getEndpoint()));
+        }
+        this.client = clientBuilder.build();
+        this.presigner = presignerBuilder.build();
+    }
+
+    // Un PUT S3 est atomique : l'objet n'apparaît qu'une fois entièrement reçu. La longueur est connue à l'avance,
+    // le fichier est donc envoyé en un seul appel.
+    @Override
+    public StoredObject put(String key, Path source, String contentType) throws IOException {
+        try {
+            client.putObject(request -> request.bucket(settings.getBucket()).key(key).contentType(contentType),
+                    RequestBody.fromFile(source));
+        } catch (SdkException e) {
+            throw new IOException("Could not upload " + key, e);
+        }
+        return stat(key).orElseThrow(() -> new IOException("Uploaded object " + key + " is not visible"));
+    }
+
+    @Override
+    public Optional<StoredObject> stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = client.headObject(request -> request.bucket(settings.getBucket()).key(key));
+            return Optional.of(new StoredObject(head.contentLength(), head.lastModified(), null));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            // HEAD n'a pas de corps : une absence arrive en simple 404, sans code d'erreur NoSuchKey.
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("Could not read metadata of " + key, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not read metadata of " + key, e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return client.getObject(request -> request.bucket(settings.getBucket()).key(key));
+        } catch (SdkException e) {
+            throw new IOException("Could not read " + key, e);
+        }
+    }
+
+    // S3 ne permet pas de modifier la date d'un objet : on le recopie sur lui-même en remplaçant ses métadonnées,
+    // opération réalisée côté serveur sans transfert du contenu.
+    @Override
+    public void touch(String key) throws IOException {
+        copy(key, key, MetadataDirective.REPLACE);
+    }
+
+    // Pas de renommage en S3 : copie côté serveur puis suppression de la source.
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        copy(sourceKey, targetKey, MetadataDirective.COPY);
+        delete(sourceKey);
+    }
+
+    private void copy(String sourceKey, String targetKey, MetadataDirective directive) throws IOException {
+        try {
+            String contentType = directive == MetadataDirective.REPLACE
+                    ? client.headObject(request -> request.bucket(settings.getBucket()).key(sourceKey)).contentType()
+                    : null;
+            client.copyObject(request -> request
+                    .sourceBucket(settings.getBucket()).sourceKey(sourceKey)
+                    .destinationBucket(settings.getBucket()).destinationKey(targetKey)
+                    .metadataDirective(directive)
+                    .contentType(contentType));
+        } catch (SdkException e) {
+            throw new IOException("Could not copy " + sourceKey + " to " + targetKey, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            client.deleteObject(request -> request.bucket(settings.getBucket()).key(key));
+        } catch (SdkException e) {
+            throw new IOException("Could not delete " + key, e);
+        }
+    }
+
+    // ListObjectsV2 renvoie au plus mille clés par page, dans l'ordre lexicographique : seules les pages nécessaires
+    // sont demandées, au fil de la consommation des lots. Le délimiteur "/" exclut les sous-dossiers (variantes,
+    // quarantaine) du parcours des originaux.
+    @Override
+    public void list(String directory, String namePrefix, Instant cutoff, int batchSize,
+                     Consumer<List<String>> batchConsumer) throws IOException {
+        String keyPrefix = directory.isEmpty() ? "" : directory + "/";
+        List<String> batch = new ArrayList<>(batchSize);
+        try {
+            String continuationToken = null;
+            do {
+                String token = continuationToken;
+                ListObjectsV2Response page = client.listObjectsV2(ListObjectsV2Request.builder()
+                        .bucket(settings.getBucket())
+                        .prefix(keyPrefix + namePrefix)
+                        .delimiter("/")
+                        .continuationToken(token)
+                        .build());
+                for (S3Object object : page.contents()) {
+                    String name = object.key().substring(keyPrefix.length());
+                    if (name.startsWith(".") || !object.lastModified().isBefore(cutoff)) {
+                        continue;
+                    }
+                    batch.add(name);
+                    if (batch.size() == batchSize) {
+                        batchConsumer.accept(List.copyOf(batch));
+                        batch.clear();
+                    }
+                }
+                continuationToken = Boolean.TRUE.equals(page.isTruncated()) ? page.nextContinuationToken() : null;
+            } while (continuationToken != null);
+        } catch (SdkException e) {
+            throw new IOException("Could not list " + keyPrefix + namePrefix, e);
+        }
+        if (!batch.isEmpty()) {
+            batchConsumer.accept(List.copyOf(batch));
+        }
+    }
+
+    // URL GET signée localement, valable presignTtl : le navigateur télécharge directement depuis le stockage.
+    @Override
+    public Optional<String> directDownloadUrl(String key) {
+        return Optional.of(presigner.presignGetObject(request -> request
+                        .signatureDuration(settings.getPresignTtl())
+                        .getObjectRequest(get -> get.bucket(settings.getBucket()).key(key)))
+                .url()
+                .toString());
+    }
+
+    @Override
+    public void destroy() {
+        presigner.close();
+        client.close();
+    }
+}
@@ -0,0 +1,52 @@
+package com.chatop.api.storage;
+
+// Point d'extension du stockage : là où les octets des fichiers sont réellement conservés (disque local, stockage objet).
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// FileStorageService garde la validation des uploads, le calcul d'empreinte, le cache de métadonnées et les règles
+// de nommage ; un backend ne fait que ranger des objets sous une clé. Les clés sont de la forme "<nom>" pour
+// les originaux, ou "<dossier>/<nom>" (variantes, quarantaine), où nom ne contient jamais de "/".
+// Les implémentations lèvent IOException pour toute erreur d'accès, quelle que soit leur technologie.
+public interface StorageBackend {
+
+    // Range sous key le contenu d'un fichier local complet (fichier temporaire déjà validé). L'écriture est atomique :
+    // l'objet n'est jamais visible partiellement écrit. Le fichier source peut être consommé (déplacé).
+    StoredObject put(String key, Path source, String contentType) throws IOException;
+
+    // Métadonnées d'un objet, vide s'il n'existe pas.
+    Optional<StoredObject> stat(String key) throws IOException;
+
+    // Ouvre le contenu d'un objet en lecture.
+    InputStream open(String key) throws IOException;
+
+    // Rafraîchit la date de dernière modification d'un objet existant (contenu dédupliqué réutilisé).
+    void touch(String key) throws IOException;
+
+    // Déplace un objet ; la date de dernière modification de la destination est celle du déplacement.
+    void move(String sourceKey, String targetKey) throws IOException;
+
+    // Supprime un objet s'il existe.
+    void delete(String key) throws IOException;
+
+    // Parcourt les objets directement rangés sous directory ("" pour les originaux) dont le nom commence par
+    // namePrefix et dont la dernière modification est antérieure à cutoff, et transmet leurs noms par lots.
+    // Le parcours est incrémental : la liste complète n'est jamais chargée en mémoire.
+    void list(String directory, String namePrefix, Instant cutoff, int batchSize, Consumer<List<String>> batchConsumer)
+            throws IOException;
+
+    // URL de téléchargement direct qui ne passe pas par l'application (URL présignée d'un stockage objet),
+    // ou vide si le backend n'en fournit pas et que les fichiers doivent être servis par FileController.
+    Optional<String> directDownloadUrl(String key);
+
+    // Métadonnées d'un objet stocké. localPath n'est renseigné que pour un objet présent sur le disque local,
+    // qui peut alors être servi directement (plages d'octets, sendfile).
+    record StoredObject(long size, Instant lastModified, Path localPath) {
+    }
+}
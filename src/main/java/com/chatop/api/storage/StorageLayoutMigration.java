@@ -0,0 +1,40 @@
+package com.chatop.api.storage;
+
+// Commande de migration du stockage à plat vers la disposition répartie en sous-dossiers.
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+// Activée par FILE_MIGRATE_LAYOUT=true (ou --app.file-storage.migrate-layout-on-startup=true) : la migration tourne
+// dans un thread dédié pendant que l'application sert déjà les requêtes. Les fichiers non encore déplacés restent
+// lisibles à leur ancien emplacement, la commande peut donc être interrompue puis relancée sans risque.
+@Slf4j
+@Component
+public class StorageLayoutMigration implements ApplicationRunner {
+
+    // Service de stockage qui effectue les déplacements.
+    private final FileStorageService fileStorageService;
+    // Indique si la migration est demandée.
+    private final FileStorageProperties properties;
+
+    public StorageLayoutMigration(FileStorageService fileStorageService, FileStorageProperties properties) {
+        this.fileStorageService = fileStorageService;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isMigrateLayoutOnStartup()) {
+            return;
+        }
+        Thread migration = new Thread(() -> {
+            log.info("Migrating flat storage files to the sharded layout");
+            int moved = fileStorageService.migrateToShardedLayout();
+            log.info("Storage layout migration finished: {} file(s) moved", moved);
+        }, "storage-layout-migration");
+        migration.setDaemon(true);
+        migration.start();
+    }
+}
@@ -0,0 +1,28 @@
+package com.chatop.api.storage;
+
+// Métadonnées d'un fichier stocké, enregistrées à l'écriture et conservées en mémoire par FileStorageService.
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+// Record immuable utilisé par le contrôleur pour répondre aux requêtes conditionnelles (ETag, Last-Modified).
+public record StoredFile(
+        // Nom sous lequel le fichier est stocké (UUID + extension).
+        String filename,
+        // Emplacement physique du fichier, null pour un objet conservé par un backend distant (stockage objet).
+        Path path,
+        // Type MIME servi dans l'entête Content-Type.
+        String contentType,
+        // Taille en octets.
+        long size,
+        // Date de dernière modification dans le stockage.
+        Instant lastModified,
+        // Empreinte SHA-256 du contenu, calculée pendant l'upload (null si les métadonnées ont été relues depuis le disque).
+        String sha256
+) {
+    // ETag fort : les fichiers portent un nom aléatoire et ne sont jamais réécrits,
+    // le nom associé à la taille et à la date de modification identifie donc le contenu de façon stable.
+    public String etag() {
+        return "\"" + filename + "-" + Long.toHexString(size) + "-" + Long.toHexString(lastModified.toEpochMilli()) + "\"";
+    }
+}
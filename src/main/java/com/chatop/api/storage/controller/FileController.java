@@ -2,16 +2,25 @@ package com.chatop.api.storage.controller;
 
 // Contrôleur REST permettant d'exposer les fichiers stockés via HTTP.
 
+import com.chatop.api.common.exception.ResourceNotFoundException;
 import com.chatop.api.storage.FileStorageService;
-import org.springframework.core.io.Resource;
+import com.chatop.api.storage.ImageVariant;
+import com.chatop.api.storage.ImageVariantService;
+import com.chatop.api.storage.StoredFile;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.Optional;
+
 // @RestController associe la classe au mécanisme MVC de Spring et garantit des réponses JSON/ressources.
 @RestController
 // Les routes exposées commencent toutes par /files.
@@ -20,21 +29,77 @@ public class FileController {
 
     // Service dédié à la gestion des fichiers.
     private final FileStorageService fileStorageService;
+    // Génération des variantes redimensionnées.
+    private final ImageVariantService imageVariantService;
+    // Écrit le fichier dans la réponse (validateurs HTTP, plages d'octets, copie zéro).
+    private final FileResponseWriter fileResponseWriter;
 
-    public FileController(FileStorageService fileStorageService) {
+    public FileController(FileStorageService fileStorageService,
+                          ImageVariantService imageVariantService,
+                          FileResponseWriter fileResponseWriter) {
         this.fileStorageService = fileStorageService;
+        this.imageVariantService = imageVariantService;
+        this.fileResponseWriter = fileResponseWriter;
     }
 
     // Endpoint permettant de télécharger/afficher un fichier stocké.
+    // La réponse est écrite directement sur la sortie servlet afin de pouvoir répondre aux requêtes Range (206)
+    // et de déléguer les gros fichiers au sendfile du serveur plutôt que de les recopier dans la JVM.
+    // Le paramètre optionnel variant (thumb, medium) sélectionne une version redimensionnée de l'image.
     @GetMapping("/{filename}")
-    public ResponseEntity<Resource> getFile(@PathVariable String filename) {
-        Resource resource = fileStorageService.loadAsResource(filename);
-        String contentType = fileStorageService.getContentType(resource);
-        return ResponseEntity.ok()
-                // On renseigne le bon Content-Type pour que le client interprète correctement le fichier.
-                .contentType(MediaType.parseMediaType(contentType))
-                // Content-Disposition inline pour autoriser l'affichage direct dans le navigateur.
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=" + filename)
-                .body(resource);
+    public void getFile(@PathVariable String filename,
+                        @RequestParam(required = false) String variant,
+                        HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+        try {
+            serve(filename, variant, request, response);
+        } catch (NoSuchFileException ex) {
+            // Métadonnées en cache mais fichier disparu : on les oublie et on répond 404 plutôt qu'une erreur 500,
+            // sans garder les entêtes (taille, cache immuable) déjà posés pour le fichier.
+            fileStorageService.forget(filename);
+            response.reset();
+            throw new ResourceNotFoundException("File not found: " + filename);
+        }
+    }
+
+    private void serve(String filename, String variant, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (variant != null) {
+            ImageVariant imageVariant = ImageVariant.fromKey(variant);
+            Optional<StoredFile> resized = fileStorageService.describeVariant(filename, imageVariant);
+            if (resized.isPresent()) {
+                if (resized.get().path() == null) {
+                    redirect(fileStorageService.directDownloadUrl(filename, imageVariant), response);
+                    return;
+                }
+                fileResponseWriter.write(resized.get(), request, response);
+                return;
+            }
+            // Variante pas encore générée (ou format non redimensionnable) : on sert l'original, sans autoriser
+            // de cache long puisque l'URL désignera bientôt l'image réduite, et on relance la génération au besoin.
+            StoredFile original = fileStorageService.describe(filename);
+            imageVariantService.generateAsync(filename);
+            if (original.path() == null) {
+                redirect(fileStorageService.directDownloadUrl(filename), response);
+                return;
+            }
+            fileResponseWriter.write(original, request, response, CacheControl.noCache());
+            return;
+        }
+        // Métadonnées servies depuis le cache : ni détection du type MIME ni lecture des attributs du fichier.
+        StoredFile storedFile = fileStorageService.describe(filename);
+        if (storedFile.path() == null) {
+            redirect(fileStorageService.directDownloadUrl(filename), response);
+            return;
+        }
+        fileResponseWriter.write(storedFile, request, response);
+    }
+
+    // Fichier conservé par un stockage objet : redirection temporaire vers une URL présignée fraîche, les octets
+    // ne transitent pas par l'application. La redirection n'est pas mise en cache, l'URL cible expirant.
+    private static void redirect(Optional<String> directUrl, HttpServletResponse response) {
+        String url = directUrl.orElseThrow(() -> new IllegalStateException("Storage backend provides no download URL"));
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        response.setHeader(HttpHeaders.LOCATION, url);
+        response.setStatus(HttpServletResponse.SC_FOUND);
     }
 }
@@ -0,0 +1,198 @@
+package com.chatop.api.storage.controller;
+
+// Écriture HTTP d'un fichier stocké : requêtes conditionnelles, plages d'octets (Range) et copie zéro.
+
+import com.chatop.api.storage.FileStorageProperties;
+import com.chatop.api.storage.StoredFile;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+// @Component : utilisé par FileController, qui délègue ici tout ce qui touche à l'écriture du corps de la réponse.
+@Component
+public class FileResponseWriter {
+
+    // Les fichiers portent un nom aléatoire et ne changent jamais : les navigateurs et CDN peuvent les garder un an
+    // sans jamais revalider ("immutable").
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    // Attributs de requête reconnus par Tomcat pour envoyer un fichier via sendfile (copie noyau, sans passer par la JVM).
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Configuration du stockage (seuil de déclenchement du sendfile).
+    private final FileStorageProperties properties;
+
+    public FileResponseWriter(FileStorageProperties properties) {
+        this.properties = properties;
+    }
+
+    // Écrit la réponse complète : 304 si le client a déjà le fichier, 206 pour une ou plusieurs plages,
+    // 416 pour une plage impossible, 200 sinon.
+    public void write(StoredFile file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(file, request, response, IMMUTABLE);
+    }
+
+    // Variante permettant d'imposer une autre politique de cache (réponse de repli servie sous une autre URL).
+    public void write(StoredFile file, HttpServletRequest request, HttpServletResponse response,
+                      CacheControl cacheControl) throws IOException {
+        String contentType = file.contentType();
+        String etag = file.etag();
+        long lastModified = file.lastModified().toEpochMilli();
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Content-Disposition inline pour autoriser l'affichage direct dans le navigateur.
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=" + file.filename());
+
+        // Spring compare ETag et Last-Modified aux entêtes If-None-Match / If-Modified-Since et positionne le 304
+        // (ainsi que les entêtes ETag et Last-Modified) : le fichier n'est jamais ouvert dans ce cas.
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !ifRangeMatches(request, etag, lastModified)) {
+            response.setContentType(contentType);
+            response.setContentLengthLong(file.size());
+            if (!isHead(request)) {
+                send(file, 0, file.size(), request, response);
+            }
+            return;
+        }
+
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+            long total = 0;
+            for (HttpRange range : ranges) {
+                long start = range.getRangeStart(file.size());
+                long end = range.getRangeEnd(file.size());
+                if (start >= file.size() || end < start) {
+                    throw new IllegalArgumentException("Range not satisfiable: " + range);
+                }
+                total += end - start + 1;
+            }
+            // Même garde-fou que Spring : des plages qui se recouvrent ne doivent pas multiplier la taille envoyée.
+            if (total > file.size() && ranges.size() > 1) {
+                throw new IllegalArgumentException("Total bytes of ranges exceed file length");
+            }
+        } catch (IllegalArgumentException ex) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + file.size());
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long start = ranges.get(0).getRangeStart(file.size());
+            long end = ranges.get(0).getRangeEnd(file.size());
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + file.size());
+            response.setContentLengthLong(end - start + 1);
+            if (!isHead(request)) {
+                send(file, start, end + 1, request, response);
+            }
+            return;
+        }
+        writeMultipart(file, contentType, ranges, request, response);
+    }
+
+    // Plusieurs plages : corps multipart/byteranges, chaque partie étant copiée directement depuis le fichier.
+    private void writeMultipart(StoredFile file, String contentType, List<HttpRange> ranges,
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String boundary = new String(MimeTypeUtils.generateMultipartBoundary(), StandardCharsets.US_ASCII);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        if (isHead(request)) {
+            return;
+        }
+        ServletOutputStream out = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            for (HttpRange range : ranges) {
+                long start = range.getRangeStart(file.size());
+                long end = range.getRangeEnd(file.size());
+                out.write(("\r\n--" + boundary + "\r\n"
+                        + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                        + HttpHeaders.CONTENT_RANGE + ": bytes " + start + "-" + end + "/" + file.size() + "\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                transfer(channel, start, end + 1, target);
+            }
+            out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    // Envoie l'intervalle [start, end[ du fichier. Au-delà du seuil et si le conteneur le permet (Tomcat NIO),
+    // l'envoi est délégué au sendfile du système : aucun octet ne transite par la JVM. Sinon, FileChannel.transferTo
+    // évite le tampon intermédiaire de la copie par flux classique.
+    private void send(StoredFile file, long start, long end, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (end - start >= properties.getSendfileThreshold()
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Le conteneur n'ouvre le fichier qu'après la réponse : on vérifie ici qu'il existe encore, tant qu'un 404
+            // peut être renvoyé à la place.
+            if (!Files.isRegularFile(file.path())) {
+                throw new NoSuchFileException(file.path().toString());
+            }
+            request.setAttribute(SENDFILE_FILENAME, file.path().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            transfer(channel, start, end, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    // transferTo peut copier moins d'octets que demandé : on boucle jusqu'à la fin de l'intervalle.
+    private static void transfer(FileChannel channel, long start, long end, WritableByteChannel target) throws IOException {
+        long position = start;
+        while (position < end) {
+            long written = channel.transferTo(position, end - position, target);
+            if (written <= 0) {
+                break;
+            }
+            position += written;
+        }
+    }
+
+    // If-Range : la plage n'est servie que si le client possède bien la version actuelle du fichier,
+    // sinon on renvoie le fichier complet.
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    private static boolean isHead(HttpServletRequest request) {
+        return HttpMethod.HEAD.matches(request.getMethod());
+    }
+}
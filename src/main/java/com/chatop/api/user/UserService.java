@@ -46,7 +46,7 @@ public class UserService {
         return userRepository.save(user);
     }
 
-    // Récupère un utilisateur par email ou renvoie une exception claire s'il n'existe pas.
+    // Récupère un utilisateur par email ou renvoie une exception claire s'il n'existe pas (lecture servie par le cache de second niveau si possible).
     public User getByEmail(String email) {
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
@@ -4,8 +4,11 @@ package com.chatop.api.user.model;
 
 import com.chatop.api.rental.model.Rental;
 import com.chatop.api.message.model.Message;
+import com.chatop.api.config.HibernateCacheConfig;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -22,6 +25,10 @@ import java.util.Set;
 @Entity
 // @Table permet de personnaliser le nom de la table (ici "users").
 @Table(name = "users")
+// Cache de second niveau : le propriétaire d'une annonce (association owner) et les utilisateurs recherchés par
+// identifiant ou par email (UserRepository) sont chargés sans requête SQL.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USERS_REGION)
 public class User {
 
     // Clé primaire auto-incrémentée de l'utilisateur.
@@ -3,13 +3,20 @@ package com.chatop.api.user.repository;
 // Les repositories s'appuient sur Spring Data JPA pour générer automatiquement les requêtes SQL courantes.
 
 import com.chatop.api.user.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 
 // En étendant JpaRepository, on bénéficie de nombreuses méthodes (findAll, save, delete...) sans code supplémentaire.
+// Les lectures sont servies par le cache de second niveau d'Hibernate (@Cache sur User) : findById directement,
+// findByEmail via le cache de requêtes qui associe l'email à l'identifiant. Chaque appel obtient sa propre instance
+// de User, et Hibernate invalide ces entrées au commit d'une écriture sur la table users (ancien email compris).
 public interface UserRepository extends JpaRepository<User, Long> {
     // Recherche d'un utilisateur à partir de son email ; Optional évite les NullPointerException.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
 
     // Vérifie rapidement l'existence d'un email pour empêcher les doublons.
@@ -0,0 +1 @@
+CREATE INDEX idx_rentals_created_at_id ON rentals(created_at, id);
@@ -0,0 +1 @@
+CREATE INDEX idx_rentals_picture_path ON rentals(picture_path);
@@ -0,0 +1,6 @@
+CREATE TABLE rate_limit_buckets (
+    bucket_key VARCHAR(255) PRIMARY KEY,
+    theoretical_arrival BIGINT NOT NULL
+);
+
+CREATE INDEX idx_rate_limit_buckets_arrival ON rate_limit_buckets(theoretical_arrival);
@@ -0,0 +1,11 @@
+CREATE TABLE revoked_tokens (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    jti VARCHAR(36),
+    subject VARCHAR(320) NOT NULL,
+    not_before DATETIME(6),
+    expires_at DATETIME(6) NOT NULL,
+    created_at DATETIME(6) NOT NULL
+);
+CREATE INDEX idx_revoked_tokens_jti ON revoked_tokens(jti);
+CREATE INDEX idx_revoked_tokens_created_at ON revoked_tokens(created_at);
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens(expires_at);
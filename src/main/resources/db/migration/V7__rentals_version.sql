@@ -0,0 +1 @@
+ALTER TABLE rentals ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
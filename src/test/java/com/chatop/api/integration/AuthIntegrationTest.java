@@ -1,18 +1,23 @@
 package com.chatop.api.integration;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.chatop.api.user.model.User;
+import com.chatop.api.user.repository.UserRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -27,6 +32,9 @@ class AuthIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private UserRepository userRepository;
+
     @Test
     void registerLoginAndMeFlow() throws Exception {
         mockMvc.perform(get("/api/auth/me"))
@@ -63,6 +71,125 @@ class AuthIntegrationTest {
                         .content(loginPayload))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.tokenType").value("Bearer"))
-                .andExpect(jsonPath("$.token").isNotEmpty());
+                .andExpect(jsonPath("$.token").isNotEmpty())
+                .andExpect(jsonPath("$.refreshToken").isNotEmpty());
+    }
+
+    @Test
+    void login_withWeakLegacyHash_shouldRehashThePasswordTransparently() throws Exception {
+        // Hash BCrypt sans préfixe d'algorithme et de coût 4, tel qu'il aurait pu être écrit par une version antérieure.
+        String legacyHash = new BCryptPasswordEncoder(4).encode("Password123!");
+        userRepository.save(User.builder().name("Legacy").email("legacy@example.com").passwordHash(legacyHash).build());
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"login\":\"legacy@example.com\",\"password\":\"Password123!\"}"))
+                .andExpect(status().isOk());
+
+        String upgraded = userRepository.findByEmail("legacy@example.com").orElseThrow().getPasswordHash();
+        assertThat(upgraded).startsWith("{bcrypt}$2a$").isNotEqualTo(legacyHash);
+        assertThat(Integer.parseInt(upgraded.substring("{bcrypt}$2a$".length(), "{bcrypt}$2a$".length() + 2))).isGreaterThanOrEqualTo(10);
+
+        // Le nouveau hash est immédiatement utilisable et n'est plus recalculé.
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"login\":\"legacy@example.com\",\"password\":\"Password123!\"}"))
+                .andExpect(status().isOk());
+        assertThat(userRepository.findByEmail("legacy@example.com").orElseThrow().getPasswordHash()).isEqualTo(upgraded);
+    }
+
+    @Test
+    void refresh_shouldRotateTheTokenAndRevokeTheSessionOnReuse() throws Exception {
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"refresh@example.com\",\"name\":\"Refresh\",\"password\":\"Password123!\"}"))
+                .andExpect(status().isCreated());
+        JsonNode login = objectMapper.readTree(mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"login\":\"refresh@example.com\",\"password\":\"Password123!\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        String first = login.get("refreshToken").asText();
+
+        JsonNode refreshed = objectMapper.readTree(refresh(first)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        String second = refreshed.get("refreshToken").asText();
+        assertThat(second).isNotEqualTo(first);
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + refreshed.get("token").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("refresh@example.com"));
+
+        // Le premier jeton a déjà été échangé : le rejouer révoque toute la famille, y compris le jeton courant.
+        refresh(first).andExpect(status().isUnauthorized());
+        refresh(second).andExpect(status().isUnauthorized());
+        refresh("unknown").andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void logout_shouldRevokeTheAccessAndRefreshTokensOfTheSessionOnly() throws Exception {
+        JsonNode first = registerAndLogin("logout@example.com");
+        JsonNode second = objectMapper.readTree(mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"login\":\"logout@example.com\",\"password\":\"Password123!\"}"))
+                .andReturn().getResponse().getContentAsString());
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + first.get("token").asText())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + first.get("refreshToken").asText() + "\"}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + first.get("token").asText()))
+                .andExpect(status().isUnauthorized());
+        refresh(first.get("refreshToken").asText()).andExpect(status().isUnauthorized());
+        // L'autre session n'est pas concernée.
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + second.get("token").asText()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void logoutAll_shouldRevokeEverySession() throws Exception {
+        JsonNode session = registerAndLogin("logout-all@example.com");
+        String token = session.get("token").asText();
+
+        mockMvc.perform(post("/api/auth/logout-all").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+        refresh(session.get("refreshToken").asText()).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void jwks_shouldPublishTheVerificationKeyWithCachingHeaders() throws Exception {
+        String etag = mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.keys[0].kty").value("EC"))
+                .andExpect(jsonPath("$.keys[0].alg").value("ES256"))
+                .andExpect(jsonPath("$.keys[0].x").isNotEmpty())
+                .andExpect(header().string("Cache-Control", "max-age=300, public"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/.well-known/jwks.json").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    private JsonNode registerAndLogin(String email) throws Exception {
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"name\":\"User\",\"password\":\"Password123!\"}"))
+                .andExpect(status().isCreated());
+        return objectMapper.readTree(mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"login\":\"" + email + "\",\"password\":\"Password123!\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private ResultActions refresh(String refreshToken) throws Exception {
+        return mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\":\"" + refreshToken + "\"}"));
     }
 }
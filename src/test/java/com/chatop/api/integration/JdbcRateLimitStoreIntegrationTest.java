@@ -0,0 +1,59 @@
+package com.chatop.api.integration;
+
+import com.chatop.api.security.ratelimit.JdbcRateLimitStore;
+import com.chatop.api.security.ratelimit.RateLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class JdbcRateLimitStoreIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcRateLimitStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new JdbcRateLimitStore(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void tryConsume_shouldCreateTheBucketThenRejectBeyondItsCapacity() {
+        String key = "login:" + System.nanoTime();
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit(2, Duration.ofMinutes(1));
+
+        assertThat(store.tryConsume(key, limit)).isZero();
+        assertThat(store.tryConsume(key, limit)).isZero();
+        Duration retryAfter = store.tryConsume(key, limit);
+
+        assertThat(retryAfter).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(30));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM rate_limit_buckets WHERE bucket_key = ?", Integer.class, key)).isEqualTo(1);
+    }
+
+    @Test
+    void tryConsume_afterThePurge_shouldStartFromAFullBucket() {
+        String key = "register-ip:" + System.nanoTime();
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit(1, Duration.ofMinutes(1));
+        store.tryConsume(key, limit);
+        jdbcTemplate.update("UPDATE rate_limit_buckets SET theoretical_arrival = 1 WHERE bucket_key = ?", key);
+
+        store.purgeFullBuckets();
+
+        assertThat(store.tryConsume(key, limit)).isZero();
+    }
+}
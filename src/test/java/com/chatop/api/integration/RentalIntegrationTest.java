@@ -1,5 +1,7 @@
 package com.chatop.api.integration;
 
+import com.chatop.api.rental.service.RentalResponseCache;
+import com.chatop.api.storage.FileStorageService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeAll;
@@ -14,14 +16,20 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -49,9 +57,15 @@ class RentalIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private RentalResponseCache rentalResponseCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private FileStorageService fileStorageService;
+
     @Test
     void createAndUpdateRentalFlow() throws Exception {
         String registerPayload = "{" +
@@ -71,7 +85,7 @@ class RentalIntegrationTest {
         String token = registerJson.get("auth").get("token").asText();
         assertThat(token).isNotBlank();
 
-        MockMultipartFile picture = new MockMultipartFile("picture", "home.jpg", "image/jpeg", "image-data".getBytes());
+        MockMultipartFile picture = new MockMultipartFile("picture", "home.jpg", "image/jpeg", jpeg("image-data"));
 
         String rentalResponse = mockMvc.perform(multipart("/api/rentals")
                         .file(picture)
@@ -94,11 +108,34 @@ class RentalIntegrationTest {
                         .header("Authorization", "Bearer " + token))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(rentalId))
-                .andExpect(jsonPath("$.pictureUrl").isNotEmpty());
+                .andExpect(jsonPath("$.pictureUrl").isNotEmpty())
+                .andExpect(jsonPath("$.thumbnailUrl").value(containsString("?variant=thumb")))
+                .andExpect(jsonPath("$.mediumUrl").value(containsString("?variant=medium")));
 
-        MockMultipartFile newPicture = new MockMultipartFile("picture", "new.jpg", "image/jpeg", "new-data".getBytes());
+        // Réponses servies depuis le cache : le client qui revalide avec l'ETag (version et empreinte du corps)
+        // reçoit un 304 sans corps.
+        String etag = mockMvc.perform(get("/api/rentals/" + rentalId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"0-")))
+                .andExpect(jsonPath("$.version").value(0))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+        mockMvc.perform(get("/api/rentals/" + rentalId)
+                        .header("If-None-Match", etag)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/rentals")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Charming house"))
+                .andExpect(header().string("ETag", startsWith("W/\"")));
 
-        mockMvc.perform(multipart("/api/rentals/" + rentalId)
+        MockMultipartFile newPicture = new MockMultipartFile("picture", "new.jpg", "image/jpeg", jpeg("new-data"));
+
+        String firstUpdateEtag = mockMvc.perform(multipart("/api/rentals/" + rentalId)
                         .file(newPicture)
                         .with(request -> {
                             request.setMethod("PUT");
@@ -108,14 +145,162 @@ class RentalIntegrationTest {
                         .param("surface", "90")
                         .param("price", "1600")
                         .param("description", "Updated description")
+                        .header("If-Match", etag)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"1-")))
+                .andExpect(jsonPath("$.name").value("Updated house"))
+                .andExpect(jsonPath("$.surface").value(90))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        // Une seconde modification fondée sur la version déjà remplacée est refusée au lieu d'écraser la première.
+        mockMvc.perform(multipart("/api/rentals/" + rentalId)
+                        .with(request -> {
+                            request.setMethod("PUT");
+                            return request;
+                        })
+                        .param("name", "Lost update")
+                        .param("surface", "10")
+                        .param("price", "10")
+                        .header("If-Match", "W/" + firstUpdateEtag + ", \"9-abc\", " + etag)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isPreconditionFailed());
+        // If-Match est une liste (RFC 9110) : il suffit qu'un ETag fort porte la version courante.
+        mockMvc.perform(multipart("/api/rentals/" + rentalId)
+                        .with(request -> {
+                            request.setMethod("PUT");
+                            return request;
+                        })
+                        .param("name", "Updated house")
+                        .param("surface", "90")
+                        .param("price", "1600")
+                        .param("description", "Updated description, again")
+                        .header("If-Match", "\"9-abc\", " + firstUpdateEtag)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"2-")));
+
+        // La modification invalide le détail et les pages qui contiennent l'annonce.
+        String updatedEtag = mockMvc.perform(get("/api/rentals/" + rentalId)
+                        .header("If-None-Match", etag)
                         .header("Authorization", "Bearer " + token))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
                 .andExpect(jsonPath("$.name").value("Updated house"))
-                .andExpect(jsonPath("$.surface").value(90));
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+        // Annonce sortie du cache : l'ETag est recalculé depuis sa seule projection, et la revalidation aboutit.
+        rentalResponseCache.evictAfterUpdate(rentalId);
+        mockMvc.perform(get("/api/rentals/" + rentalId)
+                        .header("If-None-Match", updatedEtag)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", updatedEtag));
 
         mockMvc.perform(get("/api/rentals")
                         .header("Authorization", "Bearer " + token))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content[0].name").value("Updated house"));
+
+        String cursorEtag = mockMvc.perform(get("/api/rentals")
+                        .param("cursor", "")
+                        .param("size", "10")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Updated house"))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(header().string("ETag", startsWith("W/\"")))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+        mockMvc.perform(get("/api/rentals")
+                        .param("cursor", "")
+                        .param("size", "10")
+                        .header("If-None-Match", cursorEtag)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/api/rentals")
+                        .param("cursor", "not-a-cursor")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void pictureDownloadSupportsConditionalRequests() throws Exception {
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "cached.jpg", "image/jpeg", jpeg("cached-data")));
+
+        MvcResult first = mockMvc.perform(get("/files/" + stored))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andExpect(content().bytes(jpeg("cached-data")))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/files/" + stored).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().bytes(new byte[0]));
+
+        // Contenu non décodable : aucune variante n'existera, l'original est servi sans cache long.
+        mockMvc.perform(get("/files/" + stored).param("variant", "thumb"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(content().bytes(jpeg("cached-data")));
+
+        mockMvc.perform(get("/files/" + stored).param("variant", "huge"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void pictureDeletedBehindTheMetadataCacheIsAFourOhFour() throws Exception {
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "gone.jpg", "image/jpeg", jpeg("gone-data")));
+        mockMvc.perform(get("/files/" + stored)).andExpect(status().isOk());
+
+        // Fichier supprimé hors de l'application : les métadonnées en cache le décrivent encore.
+        Files.delete(fileStorageService.describe(stored).path());
+
+        mockMvc.perform(get("/files/" + stored))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string("Cache-Control", not(containsString("immutable"))));
+    }
+
+    @Test
+    void pictureDownloadSupportsByteRanges() throws Exception {
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "ranged.jpg", "image/jpeg", jpeg("0123456789")));
+
+        mockMvc.perform(get("/files/" + stored).header("Range", "bytes=5-8"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 5-8/13"))
+                .andExpect(content().bytes("2345".getBytes()));
+
+        mockMvc.perform(get("/files/" + stored).header("Range", "bytes=0-1,11-12"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Type", containsString("multipart/byteranges")))
+                .andExpect(content().string(containsString("Content-Range: bytes 11-12/13")));
+
+        mockMvc.perform(get("/files/" + stored).header("Range", "bytes=50-60"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */13"));
+
+        mockMvc.perform(get("/files/" + stored).header("Range", "bytes=5-8").header("If-Range", "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(jpeg("0123456789")));
+    }
+
+    // Contenu précédé de la signature JPEG, seule forme acceptée par le stockage.
+    private static byte[] jpeg(String content) {
+        byte[] body = content.getBytes();
+        byte[] bytes = new byte[body.length + 3];
+        bytes[0] = (byte) 0xFF;
+        bytes[1] = (byte) 0xD8;
+        bytes[2] = (byte) 0xFF;
+        System.arraycopy(body, 0, bytes, 3, body.length);
+        return bytes;
     }
 }
@@ -0,0 +1,121 @@
+package com.chatop.api.integration;
+
+import com.chatop.api.common.dto.CursorPageResponse;
+import com.chatop.api.common.dto.PageResponse;
+import com.chatop.api.rental.dto.RentalResponse;
+import com.chatop.api.rental.model.Rental;
+import com.chatop.api.rental.repository.RentalRepository;
+import com.chatop.api.rental.service.RentalResponseCache;
+import com.chatop.api.rental.service.RentalService;
+import com.chatop.api.user.model.User;
+import com.chatop.api.user.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class RentalQueryCountIntegrationTest {
+
+    @Autowired
+    private RentalService rentalService;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 3; i++) {
+            User owner = userRepository.save(User.builder()
+                    .name("Owner " + i)
+                    .email("query-count-" + i + "@example.com")
+                    .passwordHash("hash")
+                    .build());
+            rentalRepository.save(Rental.builder()
+                    .name("Rental " + i)
+                    .surface(30 + i)
+                    .price(900 + i)
+                    .picturePath("picture-" + i + ".jpg")
+                    .owner(owner)
+                    .build());
+        }
+        entityManager.flush();
+        // Contexte de persistance vidé : les propriétaires ne peuvent pas être servis depuis le cache de premier niveau.
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void list_shouldLoadOwnersInTheSameQuery() {
+        PageResponse<RentalResponse> page = rentalService.list(PageRequest.of(0, 100, Sort.by("id")));
+
+        assertThat(page.content()).extracting(RentalResponse::ownerName).contains("Owner 0", "Owner 1", "Owner 2");
+        // Une seule requête : la page est incomplète, Spring Data déduit le total sans COUNT.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void list_withFullPage_shouldIssueOnlySelectAndCount() {
+        PageResponse<RentalResponse> page = rentalService.list(PageRequest.of(0, 2, Sort.by("id")));
+
+        assertThat(page.content()).hasSize(2).allSatisfy(rental -> assertThat(rental.ownerName()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void listByCursor_shouldWalkPagesWithOneQueryEach() {
+        CursorPageResponse<RentalResponse> first = rentalService.listByCursor(null, 2, false);
+
+        assertThat(first.content()).extracting(RentalResponse::name).containsExactly("Rental 2", "Rental 1");
+        assertThat(first.nextCursor()).isNotNull();
+        assertThat(first.totalElements()).isNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        CursorPageResponse<RentalResponse> second = rentalService.listByCursor(first.nextCursor(), 2, true);
+
+        assertThat(second.content()).extracting(RentalResponse::name).startsWith("Rental 0");
+        assertThat(second.totalElements()).isGreaterThanOrEqualTo(3);
+        // Requête keyset + COUNT explicitement demandé.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void currentEtag_shouldMatchTheFullResponseWithoutLoadingTheRental() {
+        Long id = rentalRepository.findAll().get(0).getId();
+        entityManager.clear();
+        statistics.clear();
+
+        String etag = rentalService.currentEtag(id);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(etag).isEqualTo(RentalResponseCache.etag(rentalService.getById(id)));
+    }
+}
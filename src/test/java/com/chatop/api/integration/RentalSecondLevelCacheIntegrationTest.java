@@ -0,0 +1,112 @@
+package com.chatop.api.integration;
+
+import com.chatop.api.common.dto.PageResponse;
+import com.chatop.api.config.HibernateCacheConfig;
+import com.chatop.api.rental.dto.RentalResponse;
+import com.chatop.api.rental.model.Rental;
+import com.chatop.api.rental.repository.RentalRepository;
+import com.chatop.api.rental.service.RentalService;
+import com.chatop.api.user.model.User;
+import com.chatop.api.user.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Pas de @Transactional : chaque appel de service ouvre sa propre session, seul le cache de second niveau
+// peut donc éviter la base d'un appel à l'autre.
+@SpringBootTest
+@ActiveProfiles("test")
+class RentalSecondLevelCacheIntegrationTest {
+
+    @Autowired
+    private RentalService rentalService;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Rental rental;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(User.builder()
+                .name("Cached owner")
+                .email("l2-" + System.nanoTime() + "@example.com")
+                .passwordHash("hash")
+                .build());
+        rental = rentalRepository.save(Rental.builder()
+                .name("Cached rental")
+                .surface(42)
+                .price(1200)
+                .picturePath("cached.jpg")
+                .owner(owner)
+                .build());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getById_shouldServeRentalAndOwnerFromSecondLevelCache() {
+        rentalService.getById(rental.getId());
+        statistics.clear();
+
+        RentalResponse cached = rentalService.getById(rental.getId());
+
+        assertThat(cached.ownerName()).isEqualTo("Cached owner");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics(HibernateCacheConfig.RENTALS_REGION).getHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics(HibernateCacheConfig.USERS_REGION).getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void update_shouldRefreshTheCachedRental() {
+        rentalService.getById(rental.getId());
+        Rental managed = rentalRepository.findById(rental.getId()).orElseThrow();
+        managed.setName("Renamed rental");
+        rentalRepository.save(managed);
+
+        assertThat(rentalService.getById(rental.getId()).name()).isEqualTo("Renamed rental");
+    }
+
+    @Test
+    void list_firstPage_shouldBeServedFromQueryCacheUntilRentalsChange() {
+        PageRequest firstPage = PageRequest.of(0, 1000, Sort.by("id"));
+        rentalService.list(firstPage);
+        statistics.clear();
+
+        PageResponse<RentalResponse> cached = rentalService.list(firstPage);
+
+        assertThat(cached.content()).extracting(RentalResponse::id).contains(rental.getId());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        // Toute écriture sur rentals invalide les résultats mis en cache.
+        rentalRepository.save(Rental.builder()
+                .name("Newer rental")
+                .surface(20)
+                .price(700)
+                .picturePath("newer.jpg")
+                .owner(rental.getOwner())
+                .build());
+        statistics.clear();
+
+        assertThat(rentalService.list(firstPage).content()).extracting(RentalResponse::name).contains("Newer rental");
+        assertThat(statistics.getQueryCacheHitCount()).isZero();
+    }
+}
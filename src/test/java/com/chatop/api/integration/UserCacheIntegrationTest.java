@@ -0,0 +1,52 @@
+package com.chatop.api.integration;
+
+import com.chatop.api.user.UserService;
+import com.chatop.api.user.model.User;
+import com.chatop.api.user.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserCacheIntegrationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void lookupsAreCachedAndInvalidatedOnSave() {
+        User registered = userService.registerUser("Cached", "cached@example.com", "Password123!");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User byEmail = userService.getByEmail("cached@example.com");
+        userService.getById(registered.getId());
+        statistics.clear();
+
+        // Lectures suivantes servies par le cache de second niveau, chacune avec sa propre instance.
+        assertThat(userService.getByEmail("cached@example.com")).isNotSameAs(byEmail);
+        assertThat(userService.getById(registered.getId()).getName()).isEqualTo("Cached");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        byEmail.setEmail("renamed@example.com");
+        byEmail.setName("Renamed");
+        userRepository.save(byEmail);
+
+        // L'ancien email n'est plus résolu, le nouveau l'est avec les données à jour.
+        assertThat(userRepository.findByEmail("cached@example.com")).isEmpty();
+        assertThat(userService.getByEmail("renamed@example.com").getName()).isEqualTo("Renamed");
+        assertThat(userService.getById(registered.getId()).getName()).isEqualTo("Renamed");
+    }
+}
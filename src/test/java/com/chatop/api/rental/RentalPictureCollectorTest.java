@@ -0,0 +1,157 @@
+package com.chatop.api.rental;
+
+import com.chatop.api.rental.repository.RentalRepository;
+import com.chatop.api.rental.service.RentalPictureCollector;
+import com.chatop.api.rental.service.RentalPictureCollector.SweepReport;
+import com.chatop.api.storage.FileStorageProperties;
+import com.chatop.api.storage.FileStorageService;
+import com.chatop.api.storage.LocalStorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class RentalPictureCollectorTest {
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 'o', 'n', 'e'};
+
+    private static final byte[] OTHER_JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 't', 'w', 'o'};
+
+    @TempDir
+    Path storageDir;
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Set<String> referenced = new HashSet<>();
+
+    private FileStorageService fileStorageService;
+
+    private RentalPictureCollector collector;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setLocation(storageDir.toString());
+        properties.setGcBatchSize(1);
+        properties.setGcBatchPause(Duration.ZERO);
+        fileStorageService = new FileStorageService(properties, new LocalStorageBackend(properties));
+        collector = new RentalPictureCollector(rentalRepository, fileStorageService, properties, meterRegistry);
+        given(rentalRepository.findReferencedPicturePaths(anyCollection())).willAnswer(invocation -> {
+            Collection<String> batch = invocation.getArgument(0);
+            return batch.stream().filter(referenced::contains).toList();
+        });
+    }
+
+    @Test
+    void sweep_shouldQuarantineOrphansThenDeleteThemOnTheNextPass() throws Exception {
+        String kept = storeOld(JPEG);
+        String orphan = storeOld(OTHER_JPEG);
+        referenced.add(kept);
+
+        SweepReport first = sweepAllPrefixes();
+
+        assertThat(first.scanned()).isEqualTo(2);
+        assertThat(first.quarantined()).isEqualTo(1);
+        assertThat(sharded(kept)).exists();
+        assertThat(sharded(orphan)).doesNotExist();
+
+        endQuarantine(orphan);
+        SweepReport second = sweepAllPrefixes();
+
+        assertThat(second.deleted()).isEqualTo(1);
+        assertThat(second.reclaimedBytes()).isEqualTo(OTHER_JPEG.length);
+        assertThat(sharded(storageDir.resolve(".quarantine"), orphan)).doesNotExist();
+        assertThat(meterRegistry.counter("file.gc.reclaimed").count()).isEqualTo(OTHER_JPEG.length);
+    }
+
+    @Test
+    void sweep_shouldRestoreQuarantinedFilesReferencedAgain() throws Exception {
+        String picture = storeOld(JPEG);
+        sweepAllPrefixes();
+        assertThat(sharded(picture)).doesNotExist();
+
+        // Référencé de nouveau bien avant la fin de la quarantaine : la restauration n'attend pas.
+        referenced.add(picture);
+        ageQuarantine(picture, Duration.ofMinutes(1));
+        SweepReport report = sweepAllPrefixes();
+
+        assertThat(report.restored()).isEqualTo(1);
+        assertThat(sharded(picture)).exists();
+    }
+
+    @Test
+    void sweep_shouldKeepUnreferencedFilesUntilTheEndOfTheirQuarantine() throws Exception {
+        String orphan = storeOld(JPEG);
+        sweepAllPrefixes();
+
+        ageQuarantine(orphan, Duration.ofMinutes(1));
+        SweepReport report = sweepAllPrefixes();
+
+        assertThat(report.deleted()).isZero();
+        assertThat(sharded(storageDir.resolve(".quarantine"), orphan)).exists();
+    }
+
+    // Stocke un fichier et le vieillit au-delà du délai de grâce.
+    private String storeOld(byte[] content) throws Exception {
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "home.jpg", "image/jpeg", content));
+        Files.setLastModifiedTime(sharded(stored), FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        return stored;
+    }
+
+    // Fait comme si le fichier était en quarantaine depuis plus longtemps que la durée configurée.
+    private void endQuarantine(String name) throws Exception {
+        ageQuarantine(name, Duration.ofDays(2));
+    }
+
+    // Fait remonter l'entrée en quarantaine du fichier de age.
+    private void ageQuarantine(String name, Duration age) throws Exception {
+        Files.setLastModifiedTime(sharded(storageDir.resolve(".quarantine"), name), FileTime.from(Instant.now().minus(age)));
+    }
+
+    private SweepReport sweepAllPrefixes() {
+        int scanned = 0;
+        int quarantined = 0;
+        int restored = 0;
+        int deleted = 0;
+        long reclaimed = 0;
+        for (char prefix : "0123456789abcdef".toCharArray()) {
+            SweepReport report = collector.sweep(String.valueOf(prefix));
+            scanned += report.scanned();
+            quarantined += report.quarantined();
+            restored += report.restored();
+            deleted += report.deleted();
+            reclaimed += report.reclaimedBytes();
+        }
+        return new SweepReport(scanned, quarantined, restored, deleted, reclaimed);
+    }
+
+    // Emplacement d'un fichier dans la disposition répartie par défaut (ab/cd/<nom>).
+    private Path sharded(String stored) {
+        return sharded(storageDir, stored);
+    }
+
+    private static Path sharded(Path directory, String stored) {
+        return directory.resolve(stored.substring(0, 2)).resolve(stored.substring(2, 4)).resolve(stored);
+    }
+}
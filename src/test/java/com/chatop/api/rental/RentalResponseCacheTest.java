@@ -0,0 +1,151 @@
+package com.chatop.api.rental;
+
+import com.chatop.api.common.dto.PageResponse;
+import com.chatop.api.rental.dto.RentalResponse;
+import com.chatop.api.rental.service.RentalResponseCache;
+import com.chatop.api.storage.FileStorageProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RentalResponseCacheTest {
+
+    private final RentalResponseCache cache = new RentalResponseCache(new ObjectMapper().findAndRegisterModules(),
+            new FileStorageProperties(), 100, Duration.ofSeconds(30));
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void clearTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rental_shouldChangeItsEtagWhenTheBodyChangesWithoutANewVersion() {
+        String first = RentalResponseCache.etag(rental(9L, "https://bucket.example.com/a.jpg?X-Amz-Signature=1", "Alice"));
+        String presignedAgain = RentalResponseCache.etag(rental(9L, "https://bucket.example.com/a.jpg?X-Amz-Signature=2", "Alice"));
+        String ownerRenamed = RentalResponseCache.etag(rental(9L, "https://bucket.example.com/a.jpg?X-Amz-Signature=1", "Alice Martin"));
+
+        assertThat(first).startsWith("\"3-").endsWith("\"");
+        assertThat(presignedAgain).startsWith("\"3-").isNotEqualTo(first);
+        assertThat(ownerRenamed).startsWith("\"3-").isNotEqualTo(first);
+        assertThat(cache.rental(9L, () -> rental(9L, "https://bucket.example.com/a.jpg?X-Amz-Signature=1", "Alice")).etag())
+                .isEqualTo(first);
+    }
+
+    @Test
+    void evictAfterCreate_shouldDropEveryCachedPage() {
+        loadPage(0, 1L);
+        loadPage(1, 2L);
+
+        cache.evictAfterCreate();
+        loadPage(0, 1L);
+        loadPage(1, 2L);
+
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void evictAfterUpdate_shouldDropTheRentalAndOnlyThePagesShowingIt() {
+        loadRental(1L);
+        loadRental(2L);
+        loadPage(0, 1L);
+        loadPage(1, 2L);
+        loads.set(0);
+
+        cache.evictAfterUpdate(1L);
+        loadRental(1L);
+        loadRental(2L);
+        loadPage(0, 1L);
+        loadPage(1, 2L);
+
+        // Seuls le détail et la page de l'annonce 1 sont recalculés.
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void eviction_shouldWaitForTheCommitAndBeSkippedOnRollback() {
+        loadRental(1L);
+        loadPage(0, 1L);
+        loads.set(0);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAfterUpdate(1L);
+        cache.evictAfterCreate();
+        // Avant la fin de la transaction, les réponses en cache restent servies.
+        loadRental(1L);
+        loadPage(0, 1L);
+        assertThat(loads).hasValue(0);
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+        loadRental(1L);
+        loadPage(0, 1L);
+        assertThat(loads).hasValue(0);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evictAfterUpdate(1L);
+        synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        loadRental(1L);
+        loadPage(0, 1L);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void responsesComputedDuringAnUpdate_shouldNotBeKept() {
+        // La modification est validée pendant que la réponse (désormais périmée) est calculée.
+        cache.page(PageRequest.of(0, 10), () -> {
+            loads.incrementAndGet();
+            cache.evictAfterUpdate(1L);
+            return page(1L);
+        });
+        cache.rental(1L, () -> {
+            loads.incrementAndGet();
+            cache.evictAfterUpdate(1L);
+            return rental(1L, "/files/a.jpg", "Alice");
+        });
+
+        loadPage(0, 1L);
+        loadRental(1L);
+
+        assertThat(loads).hasValue(4);
+    }
+
+    private void loadPage(int number, Long rentalId) {
+        cache.page(PageRequest.of(number, 10), () -> {
+            loads.incrementAndGet();
+            return page(rentalId);
+        });
+    }
+
+    private void loadRental(Long id) {
+        cache.rental(id, () -> {
+            loads.incrementAndGet();
+            return rental(id, "/files/a.jpg", "Alice");
+        });
+    }
+
+    private static PageResponse<RentalResponse> page(Long rentalId) {
+        return new PageResponse<>(List.of(rental(rentalId, "/files/a.jpg", "Alice")), 0, 10, 1, 1);
+    }
+
+    private static RentalResponse rental(Long id, String pictureUrl, String ownerName) {
+        return new RentalResponse(id, "Loft", 40, 900, "Near the station", pictureUrl, null, null,
+                1L, ownerName, null, null, 3L);
+    }
+}
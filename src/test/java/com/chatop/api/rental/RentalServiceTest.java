@@ -1,11 +1,14 @@
 package com.chatop.api.rental;
 
 import com.chatop.api.common.exception.BadRequestException;
+import com.chatop.api.common.exception.PreconditionFailedException;
 import com.chatop.api.rental.dto.RentalRequest;
 import com.chatop.api.rental.mapper.RentalMapper;
 import com.chatop.api.rental.model.Rental;
 import com.chatop.api.rental.repository.RentalRepository;
+import com.chatop.api.rental.service.RentalResponseCache;
 import com.chatop.api.rental.service.RentalService;
+import com.chatop.api.storage.FileSideEffects;
 import com.chatop.api.storage.FileStorageService;
 import com.chatop.api.user.UserService;
 import com.chatop.api.user.model.User;
@@ -18,10 +21,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 
+import java.util.Optional;
+import java.util.Set;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +43,12 @@ class RentalServiceTest {
     @Mock
     private FileStorageService fileStorageService;
 
+    @Mock
+    private FileSideEffects fileSideEffects;
+
+    @Mock
+    private RentalResponseCache responseCache;
+
     private RentalMapper rentalMapper;
 
     private RentalService rentalService;
@@ -46,7 +59,7 @@ class RentalServiceTest {
     @BeforeEach
     void setUp() {
         rentalMapper = new RentalMapper(fileStorageService);
-        rentalService = new RentalService(rentalRepository, userService, fileStorageService, rentalMapper);
+        rentalService = new RentalService(rentalRepository, userService, fileStorageService, fileSideEffects, rentalMapper, responseCache);
     }
 
     @Test
@@ -71,6 +84,8 @@ class RentalServiceTest {
         assertThat(saved.getName()).isEqualTo("Cozy loft");
         assertThat(saved.getPicturePath()).isEqualTo("stored.jpg");
         assertThat(response.pictureUrl()).isEqualTo("/files/stored.jpg");
+        verify(fileSideEffects).afterStore("stored.jpg");
+        verify(responseCache).evictAfterCreate();
     }
 
     @Test
@@ -84,4 +99,45 @@ class RentalServiceTest {
                 .isInstanceOf(BadRequestException.class)
                 .hasMessageContaining("Picture is required");
     }
+
+    @Test
+    void update_shouldReleaseTheOldPictureOnlyAfterCommit() {
+        User owner = User.builder().id(5L).name("Owner").email("owner@example.com").build();
+        Rental rental = Rental.builder().id(9L).name("Loft").surface(40).price(900).picturePath("old.jpg").owner(owner).build();
+        RentalRequest request = new RentalRequest();
+        request.setName("Loft");
+        request.setSurface(40);
+        request.setPrice(950);
+        request.setPicture(new MockMultipartFile("picture", "image.jpg", "image/jpeg", "data".getBytes()));
+        given(rentalRepository.findById(9L)).willReturn(Optional.of(rental));
+        given(userService.getByEmail("owner@example.com")).willReturn(owner);
+        given(fileStorageService.store(any())).willReturn("new.jpg");
+
+        rentalService.update(9L, request, "owner@example.com", null);
+
+        assertThat(rental.getPicturePath()).isEqualTo("new.jpg");
+        verify(fileStorageService, never()).delete(any());
+        verify(fileSideEffects).afterStore("new.jpg");
+        verify(fileSideEffects).releaseAfterCommit("old.jpg");
+        verify(responseCache).evictAfterUpdate(9L);
+    }
+
+    @Test
+    void update_withStaleVersion_shouldBeRejectedBeforeStoringAnything() {
+        User owner = User.builder().id(5L).name("Owner").email("owner@example.com").build();
+        Rental rental = Rental.builder().id(9L).name("Loft").surface(40).price(900).picturePath("old.jpg").owner(owner).version(3L).build();
+        RentalRequest request = new RentalRequest();
+        request.setName("Loft");
+        request.setSurface(40);
+        request.setPrice(950);
+        request.setPicture(new MockMultipartFile("picture", "image.jpg", "image/jpeg", "data".getBytes()));
+        given(rentalRepository.findById(9L)).willReturn(Optional.of(rental));
+        given(userService.getByEmail("owner@example.com")).willReturn(owner);
+
+        assertThatThrownBy(() -> rentalService.update(9L, request, "owner@example.com", Set.of(2L)))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThat(rental.getPrice()).isEqualTo(900);
+        verify(fileStorageService, never()).store(any());
+        verify(responseCache, never()).evictAfterUpdate(any());
+    }
 }
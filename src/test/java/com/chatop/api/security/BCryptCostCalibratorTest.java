@@ -0,0 +1,30 @@
+package com.chatop.api.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BCryptCostCalibratorTest {
+
+    @Test
+    void calibrate_shouldStayWithinBounds() {
+        assertThat(BCryptCostCalibrator.calibrate(Duration.ZERO, 4, 6)).isEqualTo(4);
+        assertThat(BCryptCostCalibrator.calibrate(Duration.ofMinutes(1), 4, 6)).isEqualTo(6);
+    }
+
+    @Test
+    void calibrate_shouldPickTheHighestCostUnderTheTarget() {
+        long baseline = Duration.ofMillis(1).toNanos();
+
+        // Un peu plus de quatre fois la durée au coût 4 : le coût 6 (estimé à quatre fois) tient, pas le coût 7.
+        assertThat(BCryptCostCalibrator.calibrate(baseline, Duration.ofNanos(baseline * 5), 4, 12)).isEqualTo(6);
+        assertThat(BCryptCostCalibrator.calibrate(baseline, Duration.ofNanos(baseline * 8), 4, 12)).isEqualTo(7);
+    }
+
+    @Test
+    void measure_shouldReturnAPositiveDuration() {
+        assertThat(BCryptCostCalibrator.measure(4)).isPositive();
+    }
+}
@@ -0,0 +1,35 @@
+package com.chatop.api.security;
+
+import com.chatop.api.security.jwt.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void addedIdsAreAlwaysFound_andFalsePositivesStayNearTheTargetRate() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = UUID.randomUUID();
+            filter.put(id);
+            added.add(id);
+        }
+
+        assertThat(added).allMatch(filter::mightContain);
+        long falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+        // 1 % visé : on tolère une large marge pour ne pas rendre le test aléatoire.
+        assertThat(falsePositives).isLessThan(2_000);
+        assertThat(filter.bitCount()).isLessThan(100_000);
+    }
+}
@@ -0,0 +1,105 @@
+package com.chatop.api.security;
+
+import com.chatop.api.common.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Un seul thread et une seule place en file : deux opérations suffisent à saturer le pool.
+    private final ExecutorService executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.AbortPolicy());
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    // Encodeur factice qui bloque tant que le test ne le libère pas.
+    private final PasswordEncoder slowEncoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            await();
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            await();
+            return encodedPassword.equals("hashed:" + rawPassword);
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void operations_shouldRunOnThePoolAndBeTimed() {
+        release.countDown();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slowEncoder, executor, Duration.ofSeconds(5), meterRegistry);
+
+        assertThat(encoder.matches("secret", encoder.encode("secret"))).isTrue();
+        assertThat(meterRegistry.timer("auth.password.hashing", "operation", "encode").count()).isEqualTo(1);
+        assertThat(meterRegistry.timer("auth.password.hashing", "operation", "matches").count()).isEqualTo(1);
+        assertThat(meterRegistry.timer("auth.password.queue.wait").count()).isEqualTo(2);
+    }
+
+    @Test
+    void encode_whenQueueIsFull_shouldBeRejectedImmediately() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slowEncoder, executor, Duration.ofSeconds(5), meterRegistry);
+        // Une opération occupe le thread, une autre la file.
+        CompletableFuture.runAsync(() -> encoder.encode("running"));
+        CompletableFuture.runAsync(() -> encoder.encode("queued"));
+        awaitQueued(1);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> encoder.encode("rejected"))
+                .isInstanceOf(ServiceUnavailableException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(meterRegistry.counter("auth.password.rejected", "reason", "queue_full").count()).isEqualTo(1);
+    }
+
+    @Test
+    void matches_whenWaitingTooLong_shouldBeRejectedAndLeaveTheQueue() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slowEncoder, executor, Duration.ofMillis(50), meterRegistry);
+        CompletableFuture.runAsync(() -> encoder.encode("running"));
+
+        assertThatThrownBy(() -> encoder.matches("secret", "hashed:secret"))
+                .isInstanceOf(ServiceUnavailableException.class);
+
+        assertThat(meterRegistry.counter("auth.password.rejected", "reason", "timeout").count()).isGreaterThanOrEqualTo(1);
+    }
+
+    private void awaitQueued(int size) {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pool.getQueue().size() < size && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(pool.getQueue()).hasSize(size);
+    }
+
+    private void await() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
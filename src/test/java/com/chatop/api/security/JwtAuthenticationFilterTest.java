@@ -0,0 +1,109 @@
+package com.chatop.api.security;
+
+import com.chatop.api.security.jwt.JwtAuthenticationFilter;
+import com.chatop.api.security.jwt.JwtKeyRing;
+import com.chatop.api.security.jwt.JwtProperties;
+import com.chatop.api.security.jwt.JwtTokenService;
+import com.chatop.api.security.jwt.RevokedTokenRepository;
+import com.chatop.api.security.jwt.TokenRevocationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private JwtTokenService jwtTokenService;
+
+    private TokenRevocationRegistry revocationRegistry;
+
+    private JwtAuthenticationFilter filter;
+
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret("dGVzdC1qd3Qtc2VjcmV0LXNlY3JldC1mb3ItdGVzdHM=");
+        properties.setExpirationSeconds(3600);
+        properties.setStatelessPrincipal(true);
+        jwtTokenService = new JwtTokenService(properties, new JwtKeyRing(properties));
+        revocationRegistry = new TokenRevocationRegistry(revokedTokenRepository, properties);
+        filter = new JwtAuthenticationFilter(jwtTokenService, userDetailsService, revocationRegistry, properties);
+        token = jwtTokenService.generateToken(new AuthenticatedUser(7L, "user@example.com", "hash",
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void statelessMode_shouldBuildPrincipalFromClaimsWithoutLoadingUser() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.getName()).isEqualTo("user@example.com");
+        assertThat(((AuthenticatedUser) authentication.getPrincipal()).getId()).isEqualTo(7L);
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void revokedToken_shouldNotAuthenticate() throws Exception {
+        revocationRegistry.revokeIssuedBefore("user@example.com", Instant.now().plusSeconds(5));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void loggedOutToken_shouldBeRejectedWhileOtherTokensStayValid() throws Exception {
+        String otherSession = jwtTokenService.generateToken(new AuthenticatedUser(7L, "user@example.com", "hash",
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        revocationRegistry.revoke(jwtTokenService.verify(token));
+
+        MockHttpServletRequest revoked = new MockHttpServletRequest();
+        revoked.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(revoked, new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+
+        MockHttpServletRequest valid = new MockHttpServletRequest();
+        valid.addHeader("Authorization", "Bearer " + otherSession);
+        filter.doFilter(valid, new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        // Le token révoqué est connu en mémoire ; l'autre est écarté par le filtre de Bloom : aucune requête SQL.
+        verify(revokedTokenRepository, never()).isTokenRevoked(anyString());
+    }
+}
@@ -0,0 +1,181 @@
+package com.chatop.api.security;
+
+import com.chatop.api.security.jwt.JwtKeyRing;
+import com.chatop.api.security.jwt.JwtProperties;
+import com.chatop.api.security.jwt.JwtTokenService;
+import com.chatop.api.security.jwt.VerifiedToken;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtTokenServiceTest {
+
+    private static final String SECRET = "dGVzdC1qd3Qtc2VjcmV0LXNlY3JldC1mb3ItdGVzdHM=";
+
+    private JwtProperties properties;
+
+    private final UserDetails user = new User("user@example.com", "hash", List.of());
+
+    @BeforeEach
+    void setUp() {
+        properties = new JwtProperties();
+        properties.setSecret(SECRET);
+        properties.setExpirationSeconds(3600);
+    }
+
+    @Test
+    void verify_shouldReturnClaimsSnapshot() {
+        JwtTokenService service = new JwtTokenService(properties, new JwtKeyRing(properties));
+        String token = service.generateToken(user);
+
+        VerifiedToken verified = service.verify(token);
+
+        assertThat(verified.subject()).isEqualTo("user@example.com");
+        assertThat(verified.expiresAt()).isAfter(verified.issuedAt());
+        assertThat(service.isTokenValid(token, user)).isTrue();
+    }
+
+    @Test
+    void verify_withAuthenticatedUser_shouldExposeUserIdAndRoles() {
+        JwtTokenService service = new JwtTokenService(properties, new JwtKeyRing(properties));
+        AuthenticatedUser principal = new AuthenticatedUser(42L, "user@example.com", "hash",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        VerifiedToken verified = service.verify(service.generateToken(principal));
+
+        assertThat(verified.userId()).isEqualTo(42L);
+        assertThat(verified.roles()).containsExactly("ROLE_USER");
+    }
+
+    @Test
+    void verify_withCache_shouldReturnSameSnapshotForHotToken() {
+        JwtTokenService service = new JwtTokenService(properties, new JwtKeyRing(properties));
+        String token = service.generateToken(user);
+
+        assertThat(service.verify(token)).isSameAs(service.verify(token));
+    }
+
+    @Test
+    void verify_withCacheDisabled_shouldStillVerify() {
+        properties.setVerifiedCacheSize(0);
+        JwtTokenService service = new JwtTokenService(properties, new JwtKeyRing(properties));
+        String token = service.generateToken(user);
+
+        assertThat(service.verify(token).subject()).isEqualTo("user@example.com");
+    }
+
+    @Test
+    void verify_withTamperedToken_shouldThrow() {
+        JwtTokenService service = new JwtTokenService(properties, new JwtKeyRing(properties));
+        String token = service.generateToken(user);
+        service.verify(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> service.verify(tampered)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void verify_withExpiredToken_shouldThrow() {
+        properties.setExpirationSeconds(-60);
+        JwtTokenService service = new JwtTokenService(properties, new JwtKeyRing(properties));
+        String token = service.generateToken(user);
+
+        assertThatThrownBy(() -> service.verify(token)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void rotation_shouldKeepVerifyingTokensSignedWithARetiredKey() throws Exception {
+        KeyPair first = generateKeyPair();
+        KeyPair second = generateKeyPair();
+        properties.setSigningKeys(List.of(signingKey("k1", first, true)));
+        String oldToken = new JwtTokenService(properties, new JwtKeyRing(properties)).generateToken(user);
+
+        // Nouvelle clé active ; l'ancienne n'est plus conservée que par sa clé publique.
+        properties.setSigningKeys(List.of(signingKey("k1", first, false), signingKey("k2", second, true)));
+        properties.setActiveKid("k2");
+        JwtKeyRing rotated = new JwtKeyRing(properties);
+        JwtTokenService service = new JwtTokenService(properties, rotated);
+
+        assertThat(service.verify(oldToken).subject()).isEqualTo("user@example.com");
+        assertThat(service.verify(service.generateToken(user)).subject()).isEqualTo("user@example.com");
+        assertThat(rotated.jwks()).extracting(jwk -> jwk.get("kid")).containsExactly("k1", "k2");
+        assertThat(rotated.jwks().get(0)).containsEntry("kty", "EC").containsEntry("crv", "P-256").containsEntry("alg", "ES256");
+    }
+
+    @Test
+    void keyRing_withAPrivateKeyFromAnotherPair_shouldFailAtStartup() throws Exception {
+        KeyPair published = generateKeyPair();
+        KeyPair other = generateKeyPair();
+        JwtProperties.SigningKey mismatched = signingKey("k1", published, false);
+        mismatched.setPrivateKey(Base64.getEncoder().encodeToString(other.getPrivate().getEncoded()));
+        properties.setSigningKeys(List.of(mismatched));
+
+        assertThatThrownBy(() -> new JwtKeyRing(properties))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("do not match");
+    }
+
+    @Test
+    void verify_withUnknownKid_shouldThrow() {
+        String token = new JwtTokenService(properties, new JwtKeyRing(properties)).generateToken(user);
+
+        // Un autre trousseau (autre clé éphémère) ne connaît pas ce kid.
+        properties.setSigningKeys(List.of());
+        JwtTokenService other = new JwtTokenService(properties, new JwtKeyRing(properties));
+
+        assertThatThrownBy(() -> other.verify(token)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void verify_withLegacyHs256Token_shouldOnlyBeAcceptedWhileTheSecretIsConfigured() {
+        String legacy = Jwts.builder()
+                .setSubject("user@example.com")
+                .setIssuedAt(new Date())
+                .setExpiration(Date.from(Instant.now().plusSeconds(60)))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(new JwtTokenService(properties, new JwtKeyRing(properties)).verify(legacy).subject())
+                .isEqualTo("user@example.com");
+
+        properties.setSecret(null);
+        JwtTokenService withoutSecret = new JwtTokenService(properties, new JwtKeyRing(properties));
+        assertThatThrownBy(() -> withoutSecret.verify(legacy)).isInstanceOf(JwtException.class);
+    }
+
+    private static KeyPair generateKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    private static JwtProperties.SigningKey signingKey(String kid, KeyPair pair, boolean withPrivateKey) {
+        JwtProperties.SigningKey key = new JwtProperties.SigningKey();
+        key.setKid(kid);
+        key.setPublicKey("-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(pair.getPublic().getEncoded()) + "\n-----END PUBLIC KEY-----");
+        if (withPrivateKey) {
+            key.setPrivateKey(Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded()));
+        }
+        return key;
+    }
+}
@@ -0,0 +1,128 @@
+package com.chatop.api.security;
+
+import com.chatop.api.security.ratelimit.InMemoryRateLimitStore;
+import com.chatop.api.security.ratelimit.RateLimitFilter;
+import com.chatop.api.security.ratelimit.RateLimitProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private RateLimitProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setLoginPerIp(new RateLimitProperties.Limit(3, Duration.ofMinutes(1)));
+        properties.setLoginPerAccount(new RateLimitProperties.Limit(2, Duration.ofMinutes(1)));
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RateLimitFilter(properties, new InMemoryRateLimitStore(properties), new ObjectMapper(), meterRegistry);
+    }
+
+    @Test
+    void login_beyondTheIpLimit_shouldBeRejectedWithRetryAfter() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(login("10.0.0.1", "user" + i + "@example.com").getStatus()).isEqualTo(200);
+        }
+
+        MockHttpServletResponse rejected = login("10.0.0.1", "other@example.com");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(rejected.getHeader("Retry-After"))).isBetween(1L, 20L);
+        assertThat(rejected.getContentAsString()).contains("\"status\":429");
+        assertThat(meterRegistry.counter("auth.rate.limited", "limit", "login-ip").count()).isEqualTo(1);
+        // Une autre adresse n'est pas concernée.
+        assertThat(login("10.0.0.2", "other@example.com").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void login_onTheSameAccountFromManyAddresses_shouldBeLimitedPerAccount() throws Exception {
+        assertThat(login("10.0.0.1", "Alice@example.com").getStatus()).isEqualTo(200);
+        assertThat(login("10.0.0.2", "alice@example.com").getStatus()).isEqualTo(200);
+
+        assertThat(login("10.0.0.3", "ALICE@example.com").getStatus()).isEqualTo(429);
+        assertThat(meterRegistry.counter("auth.rate.limited", "limit", "login").count()).isEqualTo(1);
+    }
+
+    @Test
+    void login_shouldReplayTheBodyToTheController() throws Exception {
+        MockHttpServletRequest request = request("/api/auth/login", "10.0.0.1",
+                "{\"login\":\"alice@example.com\",\"password\":\"secret\"}");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"login\":\"alice@example.com\",\"password\":\"secret\"}");
+    }
+
+    @Test
+    void otherRoutes_andDisabledLimiter_shouldNotBeCounted() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request("/api/rentals", "10.0.0.1", "{}"), response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+        properties.setEnabled(false);
+        for (int i = 0; i < 5; i++) {
+            assertThat(login("10.0.0.1", "alice@example.com").getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void login_withABodyPaddedBeyondTheInspectedSize_shouldBeRejectedBeforeTheController() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String padded = "{\"login\":\"alice@example.com\"," + " ".repeat(9000) + "\"password\":\"secret\"}";
+
+        filter.doFilter(request("/api/auth/login", "10.0.0.1", padded), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void login_withAHugeIdentifier_shouldUseFixedSizeBucketKeys() throws Exception {
+        List<String> keys = new ArrayList<>();
+        filter = new RateLimitFilter(properties, (key, limit) -> {
+            keys.add(key);
+            return Duration.ZERO;
+        }, new ObjectMapper(), meterRegistry);
+
+        assertThat(login("10.0.0.1", "a".repeat(7000) + "@example.com").getStatus()).isEqualTo(200);
+
+        assertThat(keys).hasSize(2).allSatisfy(key -> assertThat(key).hasSizeLessThanOrEqualTo(255));
+        assertThat(keys.get(1)).startsWith("login:").hasSize("login:".length() + 64);
+    }
+
+    private MockHttpServletResponse login(String address, String login) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request("/api/auth/login", address, "{\"login\":\"" + login + "\",\"password\":\"secret\"}"),
+                response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String uri, String address, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setRemoteAddr(address);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -0,0 +1,70 @@
+package com.chatop.api.security;
+
+import com.chatop.api.security.jwt.JwtProperties;
+import com.chatop.api.security.jwt.RevokedTokenRepository;
+import com.chatop.api.security.jwt.TokenRevocationRegistry;
+import com.chatop.api.security.jwt.VerifiedToken;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationRegistryTest {
+
+    @Mock
+    private RevokedTokenRepository repository;
+
+    @Test
+    void isRevoked_whileTheFilterIsRebuilt_shouldStillRejectRevokedTokens() {
+        String jti = UUID.randomUUID().toString();
+        VerifiedToken token = new VerifiedToken("alice@example.com", 1L, List.of("USER"),
+                Instant.now(), Instant.now().plusSeconds(3600), jti);
+        List<Boolean> duringRebuild = new ArrayList<>();
+        TokenRevocationRegistry[] registry = new TokenRevocationRegistry[1];
+        willAnswer(invocation -> {
+            if (registry[0] != null) {
+                duringRebuild.add(registry[0].isRevoked(token));
+            }
+            Consumer<RevokedTokenRepository.Revocation> consumer = invocation.getArgument(1);
+            consumer.accept(new RevokedTokenRepository.Revocation(jti, "alice@example.com", null));
+            return null;
+        }).given(repository).forEachActive(any(), any());
+        JwtProperties properties = new JwtProperties();
+        properties.setExpirationSeconds(3600);
+        registry[0] = new TokenRevocationRegistry(repository, properties);
+
+        registry[0].rebuild();
+
+        assertThat(duringRebuild).containsExactly(true);
+        assertThat(registry[0].isRevoked(token)).isTrue();
+    }
+
+    @Test
+    void revokeIssuedBefore_whileLegacyTokensAreAccepted_shouldOutliveTheirLifetime() {
+        JwtProperties properties = new JwtProperties();
+        properties.setExpirationSeconds(900);
+        properties.setSecret("bGVnYWN5LXNlY3JldA==");
+        properties.setLegacyExpirationSeconds(86_400);
+        TokenRevocationRegistry registry = new TokenRevocationRegistry(repository, properties);
+        Instant cutoff = Instant.parse("2026-01-01T10:00:00Z");
+        Instant legacyIssuedAt = cutoff.minusSeconds(60);
+
+        registry.revokeIssuedBefore("alice@example.com", cutoff);
+
+        verify(repository).revokeSubject("alice@example.com", cutoff, cutoff.plusSeconds(86_400));
+        assertThat(registry.isRevoked(new VerifiedToken("alice@example.com", null, List.of("USER"),
+                legacyIssuedAt, legacyIssuedAt.plusSeconds(86_400), null))).isTrue();
+    }
+}
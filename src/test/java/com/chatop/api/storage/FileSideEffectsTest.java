@@ -0,0 +1,90 @@
+package com.chatop.api.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSideEffectsTest {
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 'd', 'a', 't', 'a'};
+
+    @TempDir
+    Path storageDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private FileStorageService fileStorageService;
+
+    private FileSideEffects fileSideEffects;
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void releaseAfterCommit_shouldKeepTheFileUntilTheTransactionCommits() {
+        init(false);
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "old.jpg", "image/jpeg", JPEG));
+        TransactionSynchronizationManager.initSynchronization();
+
+        fileSideEffects.releaseAfterCommit(stored);
+        assertThat(sharded(stored)).exists();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        assertThat(sharded(stored)).doesNotExist();
+    }
+
+    @Test
+    void afterStore_shouldDeleteTheNewFileWhenTheTransactionRollsBack() {
+        init(false);
+        TransactionSynchronizationManager.initSynchronization();
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "new.jpg", "image/jpeg", JPEG));
+
+        fileSideEffects.afterStore(stored);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(sharded(stored)).doesNotExist();
+    }
+
+    @Test
+    void afterStore_withContentAddressedStorage_shouldReportCorruptedCopies() throws Exception {
+        init(true);
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "home.jpg", "image/jpeg", JPEG));
+        Files.write(sharded(stored), new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0});
+
+        fileSideEffects.afterStore(stored);
+
+        assertThat(meterRegistry.counter("file.digest.mismatches").count()).isEqualTo(1);
+    }
+
+    private void init(boolean contentAddressed) {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setLocation(storageDir.toString());
+        properties.setContentAddressed(contentAddressed);
+        fileStorageService = new FileStorageService(properties, new LocalStorageBackend(properties));
+        // Exécuteur synchrone : les tâches soumises après commit s'exécutent dans le thread du test.
+        fileSideEffects = new FileSideEffects(fileStorageService,
+                new ImageVariantService(fileStorageService, properties, Runnable::run), Runnable::run, meterRegistry);
+    }
+
+    // Emplacement d'un fichier dans la disposition répartie par défaut (ab/cd/<nom>).
+    private Path sharded(String stored) {
+        return storageDir.resolve(stored.substring(0, 2)).resolve(stored.substring(2, 4)).resolve(stored);
+    }
+}
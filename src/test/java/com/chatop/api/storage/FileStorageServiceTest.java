@@ -0,0 +1,167 @@
+package com.chatop.api.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileStorageServiceTest {
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 'd', 'a', 't', 'a'};
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 'd', 'a', 't', 'a'};
+
+    @TempDir
+    Path storageDir;
+
+    private FileStorageService fileStorageService;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setLocation(storageDir.toString());
+        fileStorageService = new FileStorageService(properties, new LocalStorageBackend(properties));
+    }
+
+    @Test
+    void store_shouldRecordMetadataForDownloads() {
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "home.jpg", "image/jpeg", JPEG));
+
+        StoredFile described = fileStorageService.describe(stored);
+
+        assertThat(stored).endsWith(".jpg");
+        assertThat(described.contentType()).isEqualTo("image/jpeg");
+        assertThat(described.size()).isEqualTo(JPEG.length);
+        assertThat(described.sha256()).hasSize(64);
+        assertThat(described.etag()).startsWith("\"").endsWith("\"");
+        // Seul le fichier définitif reste, dans son sous-dossier : le fichier temporaire a été renommé.
+        assertThat(described.path()).isEqualTo(sharded(stored));
+        assertThat(storageDir.toFile().list()).containsExactly(stored.substring(0, 2));
+    }
+
+    @Test
+    void describe_shouldServeMetadataFromCacheWithoutTouchingTheDisk() throws Exception {
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "home.png", "image/png", PNG));
+        StoredFile first = fileStorageService.describe(stored);
+
+        // Le fichier disparaît hors de l'application : le cache continue de répondre sans relire le disque.
+        Files.delete(sharded(stored));
+
+        assertThat(fileStorageService.describe(stored)).isSameAs(first);
+    }
+
+    @Test
+    void delete_shouldEvictMetadata() {
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "home.jpg", "image/jpeg", JPEG));
+        fileStorageService.describe(stored);
+
+        fileStorageService.delete(stored);
+
+        assertThatThrownBy(() -> fileStorageService.describe(stored))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("File not found");
+    }
+
+    @Test
+    void store_withSameContentTwice_shouldKeepASingleCopy() {
+        String first = fileStorageService.store(new MockMultipartFile("picture", "a.jpg", "image/jpeg", JPEG));
+        String second = fileStorageService.store(new MockMultipartFile("picture", "b.jpeg", "image/jpeg", JPEG));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(first).isEqualTo(fileStorageService.describe(first).sha256() + ".jpg");
+        assertThat(sharded(first).getParent().toFile().list()).containsExactly(first);
+    }
+
+    @Test
+    void store_whenTheDuplicateIsQuarantinedConcurrently_shouldPublishTheUploadAgain() {
+        String first = fileStorageService.store(new MockMultipartFile("picture", "a.jpg", "image/jpeg", JPEG));
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setLocation(storageDir.toString());
+        // Le ramasse-miettes déplace l'exemplaire existant juste avant que l'upload ne rafraîchisse sa date.
+        FileStorageService racing = new FileStorageService(properties, new LocalStorageBackend(properties) {
+            @Override
+            public void touch(String key) throws IOException {
+                move(key, ".quarantine/" + key);
+                super.touch(key);
+            }
+        });
+
+        String second = racing.store(new MockMultipartFile("picture", "b.jpg", "image/jpeg", JPEG));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(sharded(second)).exists();
+        assertThat(racing.describe(second).size()).isEqualTo(JPEG.length);
+    }
+
+    @Test
+    void quarantine_shouldSpareFilesWrittenAfterTheCutoff() {
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "home.jpg", "image/jpeg", JPEG));
+        Instant beforeUpload = Instant.now().minusSeconds(60);
+        Instant afterUpload = Instant.now().plusSeconds(60);
+
+        assertThat(scan(beforeUpload)).isEmpty();
+        assertThat(fileStorageService.quarantine(stored, beforeUpload)).isEqualTo(-1);
+        assertThat(scan(afterUpload)).containsExactly(stored);
+        assertThat(fileStorageService.quarantine(stored, afterUpload)).isEqualTo(JPEG.length);
+        // Le dossier de quarantaine est caché : il n'apparaît pas dans les parcours suivants.
+        assertThat(scan(afterUpload)).isEmpty();
+        assertThat(storageDir.resolve(".quarantine").resolve(stored.substring(0, 2)).resolve(stored.substring(2, 4)).resolve(stored)).exists();
+
+        fileStorageService.restore(stored);
+
+        assertThat(fileStorageService.describe(stored).size()).isEqualTo(JPEG.length);
+    }
+
+    private List<String> scan(Instant cutoff) {
+        List<String> names = new ArrayList<>();
+        fileStorageService.scanStored("", cutoff, 10, names::addAll);
+        return names;
+    }
+
+    @Test
+    void migrateToShardedLayout_shouldMoveFlatFilesWithoutChangingTheirUrl() throws Exception {
+        String legacy = "0b5e8b42-5b3c-4a4e-9d4b-1f2a3c4d5e6f.jpg";
+        Files.write(storageDir.resolve(legacy), JPEG);
+        String url = fileStorageService.buildPublicUrl(legacy);
+        // Avant migration, le fichier est trouvé à son ancien emplacement.
+        assertThat(fileStorageService.describe(legacy).path()).isEqualTo(storageDir.resolve(legacy));
+
+        assertThat(fileStorageService.migrateToShardedLayout()).isEqualTo(1);
+
+        assertThat(storageDir.resolve(legacy)).doesNotExist();
+        assertThat(fileStorageService.describe(legacy).path()).isEqualTo(sharded(legacy));
+        assertThat(fileStorageService.buildPublicUrl(legacy)).isEqualTo(url).isEqualTo("/files/" + legacy);
+        assertThat(scan(Instant.now().plusSeconds(60))).containsExactly(legacy);
+    }
+
+    @Test
+    void store_withContentThatIsNotAnImage_shouldBeRejectedAndLeaveNothingBehind() {
+        MockMultipartFile html = new MockMultipartFile("picture", "home.jpg", "image/jpeg", "<html></html>".getBytes());
+
+        assertThatThrownBy(() -> fileStorageService.store(html))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unsupported image format");
+        assertThat(storageDir.toFile().list()).isEmpty();
+    }
+
+    @Test
+    void describe_withTraversal_shouldBeRejected() {
+        assertThatThrownBy(() -> fileStorageService.describe("../secret.txt"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Emplacement d'un fichier dans la disposition répartie par défaut (ab/cd/<nom>).
+    private Path sharded(String stored) {
+        return storageDir.resolve(stored.substring(0, 2)).resolve(stored.substring(2, 4)).resolve(stored);
+    }
+}
@@ -0,0 +1,135 @@
+package com.chatop.api.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path storageDir;
+
+    private FileStorageService fileStorageService;
+
+    private ImageVariantService imageVariantService;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setLocation(storageDir.toString());
+        fileStorageService = new FileStorageService(properties, new LocalStorageBackend(properties));
+        // Exécution dans le thread du test pour pouvoir vérifier le résultat immédiatement.
+        imageVariantService = new ImageVariantService(fileStorageService, properties, Runnable::run);
+    }
+
+    @Test
+    void generateAsync_shouldWriteDownscaledVariantsNextToTheOriginal() throws Exception {
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "home.png", "image/png", png(2000, 1000)));
+
+        imageVariantService.generateAsync(stored);
+
+        StoredFile thumbnail = fileStorageService.describeVariant(stored, ImageVariant.THUMBNAIL).orElseThrow();
+        BufferedImage image = ImageIO.read(thumbnail.path().toFile());
+        assertThat(image.getWidth()).isEqualTo(320);
+        assertThat(image.getHeight()).isEqualTo(160);
+        assertThat(thumbnail.contentType()).isEqualTo("image/png");
+        assertThat(fileStorageService.describeVariant(stored, ImageVariant.MEDIUM)).isPresent();
+        // Le ramasse-miettes ne voit que les originaux.
+        List<String> originals = new ArrayList<>();
+        fileStorageService.scanStored("", Instant.now().plusSeconds(60), 10, originals::addAll);
+        assertThat(originals).containsExactly(stored);
+    }
+
+    @Test
+    void generate_shouldNeverUpscaleSmallImages() throws Exception {
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "small.png", "image/png", png(100, 50)));
+
+        imageVariantService.generate(stored);
+
+        StoredFile medium = fileStorageService.describeVariant(stored, ImageVariant.MEDIUM).orElseThrow();
+        assertThat(ImageIO.read(medium.path().toFile()).getWidth()).isEqualTo(100);
+    }
+
+    @Test
+    void generate_shouldSkipImagesAboveThePixelLimitWithoutDecodingThem() throws Exception {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setLocation(storageDir.toString());
+        properties.setVariantMaxPixels(100 * 100);
+        List<Runnable> scheduled = new ArrayList<>();
+        ImageVariantService bounded = new ImageVariantService(fileStorageService, properties, scheduled::add);
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "wide.png", "image/png", png(200, 100)));
+
+        bounded.generate(stored);
+        bounded.generateAsync(stored);
+
+        assertThat(fileStorageService.describeVariant(stored, ImageVariant.THUMBNAIL)).isEmpty();
+        // Les affichages suivants de la variante ne relancent pas la lecture de l'original.
+        assertThat(scheduled).isEmpty();
+    }
+
+    @Test
+    void generateAsync_whenTheQueueIsFull_shouldGiveUpThenRetryOnTheNextRequest() throws Exception {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setLocation(storageDir.toString());
+        AtomicBoolean full = new AtomicBoolean(true);
+        ImageVariantService saturated = new ImageVariantService(fileStorageService, properties, task -> {
+            if (full.get()) {
+                throw new RejectedExecutionException("queue full");
+            }
+            task.run();
+        });
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "home.png", "image/png", png(400, 200)));
+
+        saturated.generateAsync(stored);
+
+        // Rien n'est exécuté sur le thread appelant : l'original reste servi.
+        assertThat(fileStorageService.describeVariant(stored, ImageVariant.THUMBNAIL)).isEmpty();
+        full.set(false);
+        saturated.generateAsync(stored);
+        assertThat(fileStorageService.describeVariant(stored, ImageVariant.THUMBNAIL)).isPresent();
+    }
+
+    @Test
+    void webpPictures_shouldNeitherScheduleVariantsNorAdvertiseThem() throws Exception {
+        List<Runnable> scheduled = new ArrayList<>();
+        ImageVariantService recording = new ImageVariantService(fileStorageService, new FileStorageProperties(), scheduled::add);
+        byte[] webp = "RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.US_ASCII);
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "home.webp", "image/webp", webp));
+
+        recording.generateAsync(stored);
+
+        assertThat(scheduled).isEmpty();
+        assertThat(fileStorageService.buildVariantUrl(stored, ImageVariant.THUMBNAIL)).isEqualTo("/files/" + stored);
+        assertThat(fileStorageService.buildVariantUrl("a.png", ImageVariant.THUMBNAIL)).isEqualTo("/files/a.png?variant=thumb");
+    }
+
+    @Test
+    void delete_shouldRemoveVariantsWithTheOriginal() throws Exception {
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "home.png", "image/png", png(400, 200)));
+        imageVariantService.generate(stored);
+
+        fileStorageService.delete(stored);
+
+        assertThat(fileStorageService.describeVariant(stored, ImageVariant.THUMBNAIL)).isEmpty();
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", out);
+        return out.toByteArray();
+    }
+}
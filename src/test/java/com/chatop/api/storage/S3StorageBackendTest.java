@@ -0,0 +1,269 @@
+package com.chatop.api.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Le backend S3 est exercé à travers FileStorageService contre un serveur HTTP local qui imite le sous-ensemble
+// de l'API S3 utilisé (PUT, copie, HEAD, GET, ListObjectsV2, DELETE) en adressage par chemin.
+class S3StorageBackendTest {
+
+    private static final String BUCKET = "pictures";
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 'd', 'a', 't', 'a'};
+
+    @TempDir
+    Path workDir;
+
+    private S3Stub stub;
+
+    private S3StorageBackend backend;
+
+    private FileStorageService fileStorageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new S3Stub();
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setLocation(workDir.toString());
+        properties.setBackend("s3");
+        properties.getS3().setEndpoint("http://127.0.0.1:" + stub.port());
+        properties.getS3().setBucket(BUCKET);
+        properties.getS3().setAccessKey("test");
+        properties.getS3().setSecretKey("test-secret");
+        backend = new S3StorageBackend(properties);
+        fileStorageService = new FileStorageService(properties, backend);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backend.destroy();
+        stub.stop();
+    }
+
+    @Test
+    void store_shouldUploadOnceAndServeThroughPresignedUrls() throws Exception {
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "home.jpg", "image/jpeg", JPEG));
+        String again = fileStorageService.store(new MockMultipartFile("picture", "copy.jpg", "image/jpeg", JPEG));
+
+        assertThat(again).isEqualTo(stored);
+        assertThat(stub.objects).containsOnlyKeys(stored);
+        assertThat(stub.objects.get(stored).contentType).isEqualTo("image/jpeg");
+        StoredFile described = fileStorageService.describe(stored);
+        assertThat(described.path()).isNull();
+        assertThat(described.size()).isEqualTo(JPEG.length);
+        assertThat(fileStorageService.verifyDigest(stored)).isTrue();
+        try (InputStream in = fileStorageService.open(stored)) {
+            assertThat(in.readAllBytes()).isEqualTo(JPEG);
+        }
+
+        URI url = URI.create(fileStorageService.buildPublicUrl(stored));
+        assertThat(url.getPath()).isEqualTo("/" + BUCKET + "/" + stored);
+        assertThat(url.getQuery()).contains("X-Amz-Signature=", "X-Amz-Expires=3600");
+        // Les variantes restent servies par l'application, qui redirige vers le stockage.
+        assertThat(fileStorageService.buildVariantUrl(stored, ImageVariant.THUMBNAIL)).isEqualTo("/files/" + stored + "?variant=thumb");
+    }
+
+    @Test
+    void quarantine_shouldMoveObjectsOutOfTheScannedKeys() {
+        String stored = fileStorageService.store(new MockMultipartFile("picture", "home.jpg", "image/jpeg", JPEG));
+        Instant afterUpload = Instant.now().plusSeconds(60);
+
+        assertThat(scanStored(afterUpload)).containsExactly(stored);
+        assertThat(fileStorageService.quarantine(stored, afterUpload)).isEqualTo(JPEG.length);
+        assertThat(scanStored(afterUpload)).isEmpty();
+        assertThat(stub.objects).containsOnlyKeys(".quarantine/" + stored);
+
+        List<String> quarantined = new ArrayList<>();
+        fileStorageService.scanQuarantined(afterUpload, 10, quarantined::addAll);
+        assertThat(quarantined).containsExactly(stored);
+        assertThat(fileStorageService.purgeQuarantined(stored, afterUpload)).isEqualTo(JPEG.length);
+        assertThat(stub.objects).isEmpty();
+    }
+
+    private List<String> scanStored(Instant cutoff) {
+        List<String> names = new ArrayList<>();
+        fileStorageService.scanStored("", cutoff, 10, names::addAll);
+        return names;
+    }
+
+    // Objet conservé par le serveur de test.
+    private record StubObject(byte[] content, String contentType, Instant lastModified) {
+    }
+
+    // Imitation minimale d'un serveur S3 : un bucket en mémoire, sans vérification des signatures.
+    private static final class S3Stub {
+
+        private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+        private final Map<String, StubObject> objects = new ConcurrentSkipListMap<>();
+
+        private final HttpServer server;
+
+        S3Stub() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", this::handle);
+            server.start();
+        }
+
+        int port() {
+            return server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                String path = exchange.getRequestURI().getPath();
+                String key = path.length() > BUCKET.length() + 2 ? path.substring(BUCKET.length() + 2) : "";
+                byte[] body = exchange.getRequestBody().readAllBytes();
+                switch (exchange.getRequestMethod()) {
+                    case "PUT" -> put(exchange, key, body);
+                    case "HEAD" -> head(exchange, key);
+                    case "GET" -> {
+                        if (key.isEmpty()) {
+                            list(exchange);
+                        } else {
+                            get(exchange, key);
+                        }
+                    }
+                    case "DELETE" -> {
+                        objects.remove(key);
+                        exchange.sendResponseHeaders(204, -1);
+                    }
+                    default -> exchange.sendResponseHeaders(405, -1);
+                }
+            }
+        }
+
+        private void put(HttpExchange exchange, String key, byte[] body) throws IOException {
+            String copySource = exchange.getRequestHeaders().getFirst("x-amz-copy-source");
+            Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+            if (copySource == null) {
+                objects.put(key, new StubObject(body, exchange.getRequestHeaders().getFirst("Content-Type"), now));
+                exchange.getResponseHeaders().set("ETag", etag(body));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            String sourceKey = URLDecoder.decode(copySource, StandardCharsets.UTF_8).replaceFirst("^/?" + BUCKET + "/", "");
+            StubObject source = objects.get(sourceKey);
+            if (source == null) {
+                error(exchange, 404, "NoSuchKey");
+                return;
+            }
+            String contentType = "REPLACE".equals(exchange.getRequestHeaders().getFirst("x-amz-metadata-directive"))
+                    ? exchange.getRequestHeaders().getFirst("Content-Type")
+                    : source.contentType();
+            objects.put(key, new StubObject(source.content(), contentType, now));
+            xml(exchange, "<CopyObjectResult><LastModified>" + now + "</LastModified><ETag>" + etag(source.content())
+                    + "</ETag></CopyObjectResult>");
+        }
+
+        private void head(HttpExchange exchange, String key) throws IOException {
+            StubObject object = objects.get(key);
+            if (object == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            headers(exchange, object);
+            exchange.sendResponseHeaders(200, -1);
+        }
+
+        private void get(HttpExchange exchange, String key) throws IOException {
+            StubObject object = objects.get(key);
+            if (object == null) {
+                error(exchange, 404, "NoSuchKey");
+                return;
+            }
+            headers(exchange, object);
+            exchange.sendResponseHeaders(200, object.content().length);
+            exchange.getResponseBody().write(object.content());
+        }
+
+        // ListObjectsV2 sur une seule page ; les clés contenant le délimiteur après le préfixe sont omises.
+        private void list(HttpExchange exchange) throws IOException {
+            Map<String, String> query = new HashMap<>();
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            for (String parameter : rawQuery == null ? new String[0] : rawQuery.split("&")) {
+                String[] pair = parameter.split("=", 2);
+                query.put(pair[0], pair.length > 1 ? URLDecoder.decode(pair[1], StandardCharsets.UTF_8) : "");
+            }
+            String prefix = query.getOrDefault("prefix", "");
+            String delimiter = query.get("delimiter");
+            StringBuilder contents = new StringBuilder();
+            int count = 0;
+            for (Map.Entry<String, StubObject> entry : objects.entrySet()) {
+                String key = entry.getKey();
+                if (!key.startsWith(prefix) || (delimiter != null && key.indexOf(delimiter, prefix.length()) >= 0)) {
+                    continue;
+                }
+                count++;
+                contents.append("<Contents><Key>").append(key).append("</Key><LastModified>")
+                        .append(entry.getValue().lastModified()).append("</LastModified><Size>")
+                        .append(entry.getValue().content().length).append("</Size></Contents>");
+            }
+            xml(exchange, "<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\"><Name>" + BUCKET
+                    + "</Name><Prefix>" + prefix + "</Prefix><KeyCount>" + count
+                    + "</KeyCount><MaxKeys>1000</MaxKeys><IsTruncated>false</IsTruncated>" + contents + "</ListBucketResult>");
+        }
+
+        // Comme S3, l'ETag d'un objet envoyé d'un bloc est l'empreinte MD5 du contenu, que le SDK vérifie.
+        private static String etag(byte[] content) {
+            try {
+                return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content)) + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static void headers(HttpExchange exchange, StubObject object) {
+            exchange.getResponseHeaders().set("ETag", etag(object.content()));
+            exchange.getResponseHeaders().set("Content-Type", object.contentType());
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.content().length));
+            exchange.getResponseHeaders().set("Last-Modified", HTTP_DATE.format(object.lastModified()));
+        }
+
+        private static void error(HttpExchange exchange, int status, String code) throws IOException {
+            byte[] body = ("<Error><Code>" + code + "</Code><Message>" + code + "</Message></Error>")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+        }
+
+        private static void xml(HttpExchange exchange, String document) throws IOException {
+            byte[] body = document.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+}